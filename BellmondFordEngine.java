@@ -0,0 +1,207 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Faster Bellman-Ford variants over primitive edge arrays, returning
+ * DSU.BellmondFordResult with the negative cycle filled in when there is one.
+ *
+ * spfa: queue-based relaxation (only nodes whose distance changed are rescanned)
+ * with the SLF (small label first) and LLL (large label last) queue heuristics.
+ *
+ * parallel: rounds of pull-style relaxation. Each node takes the best of its
+ * in-edges from the previous round's distances, so chunks of nodes can be
+ * relaxed on different cores without any shared writes.
+ *
+ * Both stop early in the Goldberg-Radzik spirit: as soon as no distance changes,
+ * or as soon as the parent pointers form a cycle. Any cycle in the parent graph
+ * is a negative cycle, so it is returned right away instead of waiting for n-1
+ * full passes.
+ */
+public final class BellmondFordEngine {
+
+    static final long INF = Long.MAX_VALUE/4; // same sentinel as DSU.bellmondFord
+    static final int CHUNK = 1024;
+
+    final int n;
+    // out-edges for spfa, in-edges for the parallel pull rounds
+    private final WeightedCSRGraph out;
+    private final WeightedCSRGraph in;
+
+    public BellmondFordEngine(int n, int[] from, int[] to, int[] w){
+        this.n = n;
+        this.out = WeightedCSRGraph.fromEdges(n, from, to, w, true);
+        this.in = out.transpose();
+    }
+
+    /** Directed edges from DSU's edge list, as DSU.bellmondFord reads them. */
+    public static BellmondFordEngine fromEdgeList(int n, ArrayList<DSU.Edge> edges){
+        int m = edges.size();
+        int[] from = new int[m], to = new int[m], w = new int[m];
+        for(int i=0; i<m; i++){
+            DSU.Edge e = edges.get(i);
+            from[i] = e.u;
+            to[i] = e.v;
+            w[i] = e.w;
+        }
+        return new BellmondFordEngine(n, from, to, w);
+    }
+
+    public DSU.BellmondFordResult spfa(int src){
+
+        long[] dist = new long[n];
+        int[] parent = new int[n];
+        Arrays.fill(dist, INF);
+        Arrays.fill(parent, -1);
+        dist[src] = 0;
+
+        // circular deque; a node is in it at most once, so n+1 slots are enough
+        int cap = n + 1;
+        int[] deque = new int[cap];
+        boolean[] inQueue = new boolean[n];
+        int head = 0, size = 0;
+        long queueSum = 0; // sum of dist over queued nodes, for LLL
+
+        deque[0] = src;
+        size = 1;
+        inQueue[src] = true;
+
+        long relaxations = 0;
+        while(size > 0){
+
+            // LLL: rotate nodes above the queue average to the back
+            for(int k=0; k<size; k++){
+                int front = deque[head];
+                if(dist[front] <= (double) queueSum / size) break;
+                deque[(head + size) % cap] = front;
+                head = (head + 1) % cap;
+            }
+
+            int u = deque[head];
+            head = (head + 1) % cap;
+            size--;
+            inQueue[u] = false;
+            queueSum -= dist[u];
+
+            for(int e=out.offsets[u]; e<out.offsets[u+1]; e++){
+                int v = out.targets[e];
+                long nd = dist[u] + out.weights[e];
+                if(nd >= dist[v]) continue;
+
+                if(inQueue[v]) queueSum -= dist[v] - nd;
+                dist[v] = nd;
+                parent[v] = u;
+
+                if(!inQueue[v]){
+                    // SLF: smaller than the current front goes first
+                    if(size > 0 && nd < dist[deque[head]]){
+                        head = (head - 1 + cap) % cap;
+                        deque[head] = v;
+                    }else{
+                        deque[(head + size) % cap] = v;
+                    }
+                    size++;
+                    inQueue[v] = true;
+                    queueSum += nd;
+                }
+
+                // amortised parent-graph check, O(n) work every n relaxations
+                if(++relaxations % n == 0){
+                    int[] cycle = findParentCycle(parent);
+                    if(cycle.length > 0) return new DSU.BellmondFordResult(dist, parent, true, cycle);
+                }
+            }
+        }
+        return new DSU.BellmondFordResult(dist, parent, false);
+    }
+
+    public DSU.BellmondFordResult parallel(int src){
+
+        long[] cur = new long[n], next = new long[n];
+        int[] parent = new int[n];
+        Arrays.fill(cur, INF);
+        Arrays.fill(parent, -1);
+        cur[src] = 0;
+
+        int chunks = (n + CHUNK - 1) / CHUNK;
+        boolean[] chunkChanged = new boolean[chunks];
+
+        for(int round=0; round<n; round++){
+            final long[] prev = cur, nxt = next;
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                boolean changed = false;
+                for(int v=c*CHUNK, end=Math.min(n, (c+1)*CHUNK); v<end; v++){
+                    long best = prev[v];
+                    int bestParent = parent[v];
+                    for(int e=in.offsets[v]; e<in.offsets[v+1]; e++){
+                        int u = in.targets[e];
+                        if(prev[u] == INF) continue;
+                        long nd = prev[u] + in.weights[e];
+                        if(nd < best){
+                            best = nd;
+                            bestParent = u;
+                        }
+                    }
+                    if(best < prev[v]) changed = true;
+                    nxt[v] = best;
+                    parent[v] = bestParent;
+                }
+                chunkChanged[c] = changed;
+            });
+
+            cur = next;
+            next = prev;
+
+            boolean changed = false;
+            for(boolean b: chunkChanged) changed |= b;
+            if(!changed) return new DSU.BellmondFordResult(cur, parent, false);
+
+            int[] cycle = findParentCycle(parent);
+            if(cycle.length > 0) return new DSU.BellmondFordResult(cur, parent, true, cycle);
+        }
+
+        // still changing after n rounds: a negative cycle is reachable
+        return new DSU.BellmondFordResult(cur, parent, true, findParentCycle(parent));
+    }
+
+    // walks parent pointers from every node, colouring by walk id; meeting the
+    // current walk's colour again means we went around a cycle
+    static int[] findParentCycle(int[] parent){
+
+        int n = parent.length;
+        int[] color = new int[n];
+        for(int s=0; s<n; s++){
+            if(color[s] != 0) continue;
+            int v = s;
+            while(v != -1 && color[v] == 0){
+                color[v] = s + 1;
+                v = parent[v];
+            }
+            if(v != -1 && color[v] == s + 1) return collectCycle(parent, v);
+        }
+        return new int[0];
+    }
+
+    /**
+     * The cycle reached by following parent pointers from start, in edge order.
+     * After n steps the walk is guaranteed to be on the cycle if one exists.
+     */
+    static int[] cycleThrough(int[] parent, int start, int n){
+        int v = start;
+        for(int i=0; i<n && v != -1; i++) v = parent[v];
+        if(v == -1) return new int[0];
+        return collectCycle(parent, v);
+    }
+
+    private static int[] collectCycle(int[] parent, int onCycle){
+        ArrayList<Integer> rev = new ArrayList<Integer>();
+        int v = onCycle;
+        do{
+            rev.add(v);
+            v = parent[v];
+        }while(v != onCycle);
+
+        int[] cycle = new int[rev.size()];
+        for(int i=0; i<cycle.length; i++) cycle[i] = rev.get(cycle.length - 1 - i);
+        return cycle;
+    }
+}
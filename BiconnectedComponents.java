@@ -0,0 +1,293 @@
+import java.util.*;
+
+/**
+ * Bridges, articulation points, biconnected components and 2-edge-connected
+ * components of an undirected multigraph, from one iterative Tarjan DFS.
+ *
+ * Edges are given as parallel from/to arrays and the edge index is its id. The
+ * DFS skips the edge it arrived by (by id, not by parent node), so a parallel
+ * edge back to the parent counts as a back edge and a doubled edge is never a
+ * bridge. The DFS uses explicit stacks and visits neighbours in insertion
+ * order, so it finds things in the same order as the recursive version in
+ * TarjansBridgeAndArticulationPoints, without its stack depth limit.
+ *
+ * All results are flat arrays:
+ *   - bridges(): bridge edge ids, in the order they were found
+ *   - blockOffsets()/blockNodes(): CSR of each biconnected component's nodes,
+ *     an isolated node is a block of its own
+ *   - edgeBlocks(): block of each edge, -1 for self-loops
+ *   - twoEdgeComponents(): 2-edge-connected component of each node
+ *   - blockCutTree(): blocks are tree nodes [0, blockCount), articulation
+ *     point number i (see cutIndex) is tree node blockCount + i
+ */
+public final class BiconnectedComponents {
+
+    final int n;
+    final int[] from, to;
+
+    // incidence lists: slots offsets[u]..offsets[u+1] hold the neighbour and edge id
+    private final int[] offsets, adj, adjEdge;
+
+    final int[] disc, low;
+    final int[] parentEdge;   // -1 for DFS roots
+    final boolean[] articulation;
+    final boolean[] bridge;   // by edge id
+
+    private int[] bridges = new int[16];
+    private int bridgeCount;
+
+    private int[] blockOffsets = new int[16];
+    private int[] blockNodes = new int[16];
+    private int blockCount, blockNodeCount;
+    final int[] nodeBlock;    // block a node belongs to; for articulation points the one nearest the root
+    final int[] edgeBlock;
+
+    final int[] twoEdgeComponent;
+    private int twoEdgeCount;
+
+    private int[] cutIndex;
+    private CSRGraph blockCutTree;
+
+    public BiconnectedComponents(int n, int[] from, int[] to){
+        this.n = n;
+        this.from = from;
+        this.to = to;
+
+        int m = from.length;
+        offsets = new int[n+1];
+        for(int e=0; e<m; e++){
+            offsets[from[e]+1]++;
+            offsets[to[e]+1]++;
+        }
+        for(int i=0; i<n; i++) offsets[i+1] += offsets[i];
+
+        adj = new int[2*m];
+        adjEdge = new int[2*m];
+        int[] pos = Arrays.copyOf(offsets, n);
+        for(int e=0; e<m; e++){
+            adj[pos[from[e]]] = to[e];
+            adjEdge[pos[from[e]]++] = e;
+            adj[pos[to[e]]] = from[e];
+            adjEdge[pos[to[e]]++] = e;
+        }
+
+        disc = new int[n];
+        low = new int[n];
+        parentEdge = new int[n];
+        articulation = new boolean[n];
+        bridge = new boolean[m];
+        nodeBlock = new int[n];
+        edgeBlock = new int[m];
+        twoEdgeComponent = new int[n];
+
+        run();
+
+        // a tree edge belongs to its child's block, a back edge to the block of its deeper end
+        for(int e=0; e<m; e++){
+            int a = from[e], b = to[e];
+            edgeBlock[e] = a == b ? -1 : nodeBlock[disc[a] > disc[b] ? a : b];
+        }
+    }
+
+    /** Undirected edges as {u, v} pairs. */
+    public static BiconnectedComponents of(int n, int[][] edges){
+        int[] from = new int[edges.length], to = new int[edges.length];
+        for(int i=0; i<edges.length; i++){
+            from[i] = edges[i][0];
+            to[i] = edges[i][1];
+        }
+        return new BiconnectedComponents(n, from, to);
+    }
+
+    private void run(){
+
+        int[] stack = new int[n];
+        int[] cursor = new int[n];        // next incidence slot per node
+        int[] blockStack = new int[n];    // nodes not yet in a block
+        int[] edgeCompStack = new int[n]; // nodes not yet in a 2-edge component
+        int time = 0;
+
+        for(int r=0; r<n; r++){
+            if(disc[r] != 0) continue;
+
+            int top = 0, blockTop = 0, edgeCompTop = 0;
+            int rootChildren = 0;
+            stack[0] = r;
+            blockStack[blockTop++] = r;
+            edgeCompStack[edgeCompTop++] = r;
+            disc[r] = low[r] = ++time;
+            parentEdge[r] = -1;
+            nodeBlock[r] = -1;
+            cursor[r] = offsets[r];
+
+            while(true){
+                int u = stack[top];
+
+                if(cursor[u] < offsets[u+1]){
+                    int slot = cursor[u]++;
+                    int e = adjEdge[slot];
+                    if(e == parentEdge[u]) continue;
+
+                    int v = adj[slot];
+                    if(disc[v] == 0){
+                        if(u == r) rootChildren++;
+                        disc[v] = low[v] = ++time;
+                        parentEdge[v] = e;
+                        cursor[v] = offsets[v];
+                        stack[++top] = v;
+                        blockStack[blockTop++] = v;
+                        edgeCompStack[edgeCompTop++] = v;
+                    }else{
+                        low[u] = Math.min(low[u], disc[v]);
+                    }
+                    continue;
+                }
+
+                // u is finished, hand its low value to the parent
+                if(top == 0) break;
+                int p = stack[--top];
+                low[p] = Math.min(low[p], low[u]);
+
+                if(low[u] > disc[p]){
+                    int e = parentEdge[u];
+                    bridge[e] = true;
+                    if(bridgeCount == bridges.length) bridges = Arrays.copyOf(bridges, bridgeCount * 2);
+                    bridges[bridgeCount++] = e;
+
+                    int x;
+                    do{
+                        x = edgeCompStack[--edgeCompTop];
+                        twoEdgeComponent[x] = twoEdgeCount;
+                    }while(x != u);
+                    twoEdgeCount++;
+                }
+
+                if(low[u] >= disc[p]){
+                    if(p != r) articulation[p] = true;
+                    if(p == r && nodeBlock[r] == -1) nodeBlock[r] = blockCount;
+
+                    // u's subtree down to the last cut, plus p as the block's head
+                    int x;
+                    do{
+                        x = blockStack[--blockTop];
+                        nodeBlock[x] = blockCount;
+                        addBlockNode(x);
+                    }while(x != u);
+                    addBlockNode(p);
+                    closeBlock();
+                }
+            }
+
+            if(rootChildren > 1) articulation[r] = true;
+            if(rootChildren == 0){
+                nodeBlock[r] = blockCount;
+                addBlockNode(r);
+                closeBlock();
+            }
+
+            // whatever is left hangs off r without a bridge
+            while(edgeCompTop > 0) twoEdgeComponent[edgeCompStack[--edgeCompTop]] = twoEdgeCount;
+            twoEdgeCount++;
+        }
+    }
+
+    private void addBlockNode(int x){
+        if(blockNodeCount == blockNodes.length) blockNodes = Arrays.copyOf(blockNodes, blockNodeCount * 2);
+        blockNodes[blockNodeCount++] = x;
+    }
+
+    private void closeBlock(){
+        if(blockCount + 2 > blockOffsets.length) blockOffsets = Arrays.copyOf(blockOffsets, blockOffsets.length * 2);
+        blockOffsets[++blockCount] = blockNodeCount;
+    }
+
+    /** Bridge edge ids in the order they were found. */
+    public int[] bridges(){
+        return Arrays.copyOf(bridges, bridgeCount);
+    }
+
+    public boolean isBridge(int edge){
+        return bridge[edge];
+    }
+
+    public boolean isArticulationPoint(int v){
+        return articulation[v];
+    }
+
+    public int[] articulationPoints(){
+        int count = 0;
+        for(boolean a: articulation) if(a) count++;
+        int[] res = new int[count];
+        for(int v=0, i=0; v<n; v++) if(articulation[v]) res[i++] = v;
+        return res;
+    }
+
+    public int blockCount(){
+        return blockCount;
+    }
+
+    /** Block b's nodes are blockNodes()[blockOffsets()[b] .. blockOffsets()[b+1]). */
+    public int[] blockOffsets(){
+        return Arrays.copyOf(blockOffsets, blockCount + 1);
+    }
+
+    public int[] blockNodes(){
+        return Arrays.copyOf(blockNodes, blockNodeCount);
+    }
+
+    /** Block of every edge, -1 for self-loops. */
+    public int[] edgeBlocks(){
+        return edgeBlock;
+    }
+
+    public int twoEdgeComponentCount(){
+        return twoEdgeCount;
+    }
+
+    /** 2-edge-connected component of every node, numbered from 0. */
+    public int[] twoEdgeComponents(){
+        return twoEdgeComponent;
+    }
+
+    /** Index of v among the articulation points (its tree node is blockCount + index), -1 if v is not one. */
+    public int cutIndex(int v){
+        blockCutTree();
+        return cutIndex[v];
+    }
+
+    /** Block-cut tree (a forest for disconnected graphs), built on first use. */
+    public CSRGraph blockCutTree(){
+        if(blockCutTree != null) return blockCutTree;
+
+        cutIndex = new int[n];
+        int cuts = 0;
+        for(int v=0; v<n; v++) cutIndex[v] = articulation[v] ? cuts++ : -1;
+
+        int links = 0;
+        for(int i=0; i<blockNodeCount; i++) if(articulation[blockNodes[i]]) links++;
+
+        int[] treeFrom = new int[links], treeTo = new int[links];
+        int k = 0;
+        for(int b=0; b<blockCount; b++){
+            for(int i=blockOffsets[b]; i<blockOffsets[b+1]; i++){
+                int v = blockNodes[i];
+                if(!articulation[v]) continue;
+                treeFrom[k] = b;
+                treeTo[k++] = blockCount + cutIndex[v];
+            }
+        }
+        blockCutTree = CSRGraph.fromEdges(blockCount + cuts, treeFrom, treeTo, false);
+        return blockCutTree;
+    }
+
+    /** Bridges as {parent, child} pairs in DFS order, same shape as TarjansBridgeAndArticulationPoints.getBridges(). */
+    public List<int[]> bridgePairs(){
+        List<int[]> res = new ArrayList<>(bridgeCount);
+        for(int i=0; i<bridgeCount; i++){
+            int e = bridges[i];
+            int a = from[e], b = to[e];
+            res.add(disc[a] < disc[b] ? new int[]{a, b} : new int[]{b, a});
+        }
+        return res;
+    }
+}
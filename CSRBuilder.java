@@ -0,0 +1,408 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk construction of CSRGraph / WeightedCSRGraph from edges given in batches.
+ *
+ * Edges are appended to primitive arrays, either a batch of parallel arrays at a
+ * time, or streamed from a text edge list or a binary stream of little-endian
+ * int pairs (triples when weighted). build() splits the node ids into ranges of
+ * 2^shift ids (about PARTS_PER_THREAD per thread) and the edges into chunks:
+ *   1. count, per chunk, the edges whose source falls in each range
+ *   2. prefix sum over (range, chunk) so every pair owns a slice of a buffer
+ *   3. scatter the edges into their slices, then let every range count, lay out
+ *      and fill its own rows
+ * No step needs atomics, so nothing fences the random writes of the scatter, and
+ * neighbours keep the order in which their edges were added. Optionally every
+ * neighbour list is sorted and duplicate edges dropped (keeping the lightest).
+ *
+ * stats() reports the time of each phase and the resulting edges per second.
+ */
+public final class CSRBuilder {
+
+    static final int BLOCK = 1 << 16;
+    static final int PARTS_PER_THREAD = 16;
+
+    public static final class Stats {
+        final long edges;
+        final long ingestNanos, countNanos, prefixNanos, scatterNanos, sortNanos;
+
+        Stats(long edges, long ingestNanos, long countNanos, long prefixNanos, long scatterNanos, long sortNanos){
+            this.edges = edges;
+            this.ingestNanos = ingestNanos;
+            this.countNanos = countNanos;
+            this.prefixNanos = prefixNanos;
+            this.scatterNanos = scatterNanos;
+            this.sortNanos = sortNanos;
+        }
+
+        /** Build throughput, not counting the time spent adding edges. */
+        public double edgesPerSecond(){
+            long nanos = countNanos + prefixNanos + scatterNanos + sortNanos;
+            return nanos == 0 ? 0 : edges * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("edges=%d ingest=%.1fms count=%.1fms prefix=%.1fms scatter=%.1fms sort=%.1fms (%.1f M edges/s)",
+                edges, ingestNanos / 1e6, countNanos / 1e6, prefixNanos / 1e6, scatterNanos / 1e6, sortNanos / 1e6,
+                edgesPerSecond() / 1e6);
+        }
+    }
+
+    private int nodes;             // -1: largest id + 1
+    private boolean directed = true;
+    private boolean sorted, deduplicated;
+
+    private int[] from = new int[1024], to = new int[1024], weight;
+    private int size;
+    private long ingestNanos;
+    private Stats stats;
+
+    /** Node count taken from the largest id seen. */
+    public CSRBuilder(){
+        this(-1);
+    }
+
+    public CSRBuilder(int nodes){
+        this.nodes = nodes;
+    }
+
+    /** Every edge is also stored in reverse. */
+    public CSRBuilder undirected(){
+        directed = false;
+        return this;
+    }
+
+    /** Sort every neighbour list by target. */
+    public CSRBuilder sortNeighbours(){
+        sorted = true;
+        return this;
+    }
+
+    /** Sort every neighbour list and keep one edge per target (the lightest when weighted). */
+    public CSRBuilder deduplicate(){
+        sorted = true;
+        deduplicated = true;
+        return this;
+    }
+
+    public CSRBuilder addEdge(int u, int v){
+        check(u, v);
+        ensureCapacity(size + 1, false);
+        from[size] = u;
+        to[size++] = v;
+        return this;
+    }
+
+    public CSRBuilder addEdge(int u, int v, int w){
+        check(u, v);
+        ensureCapacity(size + 1, true);
+        from[size] = u;
+        to[size] = v;
+        weight[size++] = w;
+        return this;
+    }
+
+    /** Appends from[offset..offset+length) -> to[...]. */
+    public CSRBuilder addEdges(int[] u, int[] v, int offset, int length){
+        long start = System.nanoTime();
+        for(int i=offset; i<offset+length; i++) check(u[i], v[i]);
+        ensureCapacity(size + length, false);
+        System.arraycopy(u, offset, from, size, length);
+        System.arraycopy(v, offset, to, size, length);
+        size += length;
+        ingestNanos += System.nanoTime() - start;
+        return this;
+    }
+
+    public CSRBuilder addEdges(int[] u, int[] v){
+        return addEdges(u, v, 0, u.length);
+    }
+
+    public CSRBuilder addEdges(int[] u, int[] v, int[] w, int offset, int length){
+        long start = System.nanoTime();
+        for(int i=offset; i<offset+length; i++) check(u[i], v[i]);
+        ensureCapacity(size + length, true);
+        System.arraycopy(u, offset, from, size, length);
+        System.arraycopy(v, offset, to, size, length);
+        System.arraycopy(w, offset, weight, size, length);
+        size += length;
+        ingestNanos += System.nanoTime() - start;
+        return this;
+    }
+
+    public CSRBuilder addEdges(int[] u, int[] v, int[] w){
+        return addEdges(u, v, w, 0, u.length);
+    }
+
+    /**
+     * Text edge list, "u v" or "u v w" per line, see MappedCSRGraph.convertEdgeList.
+     * Reads to the end of in but leaves closing it to the caller.
+     */
+    public CSRBuilder readEdgeList(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        long[] line = new long[3];
+        MappedCSRGraph.EdgeListReader reader = new MappedCSRGraph.EdgeListReader(in);
+        int k;
+        while((k = reader.readLine(line)) >= 0){
+            if(k == 0) continue;
+            if(k < 2) throw new IOException("line " + reader.lineNumber + ": expected \"u v\" or \"u v w\"");
+            int u = Math.toIntExact(line[0]), v = Math.toIntExact(line[1]);
+            if(k >= 3) addEdge(u, v, Math.toIntExact(line[2]));
+            else addEdge(u, v);
+        }
+        ingestNanos += System.nanoTime() - start;
+        return this;
+    }
+
+    /** Little-endian int pairs (u, v), or triples (u, v, w) when weighted, until end of stream. */
+    public CSRBuilder readBinary(InputStream in, boolean weighted) throws IOException {
+        long start = System.nanoTime();
+        int record = weighted ? 12 : 8;
+        byte[] buf = new byte[record * 8192];
+        ByteBuffer bytes = ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN);
+        while(true){
+            int read = in.readNBytes(buf, 0, buf.length);
+            if(read % record != 0) throw new EOFException("stream ends inside an edge record");
+            int count = read / record;
+            ensureCapacity(size + count, weighted);
+            for(int i=0; i<count; i++){
+                from[size] = bytes.getInt(i*record);
+                to[size] = bytes.getInt(i*record + 4);
+                check(from[size], to[size]);
+                if(weighted) weight[size] = bytes.getInt(i*record + 8);
+                size++;
+            }
+            if(read < buf.length) break;
+        }
+        ingestNanos += System.nanoTime() - start;
+        return this;
+    }
+
+    public int edgesAdded(){
+        return size;
+    }
+
+    public CSRGraph build(){
+        Built b = assemble(false);
+        return new CSRGraph(b.n, b.offsets, b.targets);
+    }
+
+    public WeightedCSRGraph buildWeighted(){
+        if(weight == null && size > 0) throw new IllegalStateException("edges were added without weights");
+        Built b = assemble(true);
+        return new WeightedCSRGraph(b.n, b.offsets, b.targets, b.weights);
+    }
+
+    /** Timings of the last build. */
+    public Stats stats(){
+        return stats;
+    }
+
+    private static final class Built {
+        int n;
+        int[] offsets, targets, weights;
+    }
+
+    private Built assemble(boolean weighted){
+
+        int m = size;
+        int[] src = from, dst = to, w = weighted ? weight : null;
+        int n = nodes >= 0 ? nodes
+            : IntStream.range(0, m).parallel().map(i -> Math.max(src[i], dst[i])).max().orElse(-1) + 1;
+        long total = directed ? m : 2L * m;
+        if(total > Integer.MAX_VALUE - 8) throw new IllegalStateException("too many edges for an int CSR: " + total);
+        boolean both = !directed;
+
+        // node ranges of 2^shift ids, about PARTS_PER_THREAD per thread
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        int shift = 0;
+        while(shift < 30 && ((long) n >> shift) > (long) threads * PARTS_PER_THREAD) shift++;
+        int parts = (int) (((long) n + (1L << shift) - 1) >> shift);
+        int chunkSize = Math.max(BLOCK, m / Math.max(1, threads * 8));
+        int chunks = (m + chunkSize - 1) / chunkSize;
+        int sh = shift;
+
+        // 1. per chunk, how many records land in each part
+        long t0 = System.nanoTime();
+        int[] hist = new int[chunks * parts];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int base = c * parts;
+            for(int i=c*chunkSize, end=Math.min(m, (c+1)*chunkSize); i<end; i++){
+                hist[base + (src[i] >>> sh)]++;
+                if(both) hist[base + (dst[i] >>> sh)]++;
+            }
+        });
+
+        // 2. slot (c, p) starts after every record of earlier parts and of part p in
+        // earlier chunks, so parts end up contiguous and in node order
+        long t1 = System.nanoTime();
+        int[] partStart = new int[parts + 1];
+        int at = 0;
+        for(int p=0; p<parts; p++){
+            partStart[p] = at;
+            for(int c=0; c<chunks; c++){
+                int k = hist[c*parts + p];
+                hist[c*parts + p] = at;
+                at += k;
+            }
+        }
+        partStart[parts] = at;
+
+        // 3. bucket records by part, then each part lays out its own rows with plain writes
+        long t2 = System.nanoTime();
+        int[] bucketSrc = new int[(int) total], bucketDst = new int[(int) total];
+        int[] bucketW = weighted ? new int[(int) total] : null;
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int base = c * parts;
+            for(int i=c*chunkSize, end=Math.min(m, (c+1)*chunkSize); i<end; i++){
+                int u = src[i], v = dst[i];
+                int k = hist[base + (u >>> sh)]++;
+                bucketSrc[k] = u;
+                bucketDst[k] = v;
+                if(w != null) bucketW[k] = w[i];
+                if(both){
+                    k = hist[base + (v >>> sh)]++;
+                    bucketSrc[k] = v;
+                    bucketDst[k] = u;
+                    if(w != null) bucketW[k] = w[i];
+                }
+            }
+        });
+
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[(int) total];
+        int[] weights = weighted ? new int[(int) total] : null;
+        IntStream.range(0, parts).parallel().forEach(p -> {
+            int lo = p << sh, hi = (int) Math.min(n, ((long) p + 1) << sh);
+            int begin = partStart[p], end = partStart[p+1];
+            // only offsets[lo..hi) belong to this part: count, then exclusive scan
+            for(int k=begin; k<end; k++) offsets[bucketSrc[k]]++;
+            for(int u=lo, next=begin; u<hi; u++){
+                int d = offsets[u];
+                offsets[u] = next;
+                next += d;
+            }
+            // offsets[u] is the write cursor for u; shifted back to row starts below
+            for(int k=begin; k<end; k++){
+                int q = offsets[bucketSrc[k]]++;
+                targets[q] = bucketDst[k];
+                if(weights != null) weights[q] = bucketW[k];
+            }
+            for(int u=hi-1; u>lo; u--) offsets[u] = offsets[u-1];
+            offsets[lo] = begin;
+        });
+        offsets[n] = partStart[parts];
+
+        long t3 = System.nanoTime();
+        Built b = new Built();
+        b.n = n;
+        b.offsets = offsets;
+        b.targets = targets;
+        b.weights = weights;
+        if(sorted) sortRows(b);
+        long t4 = System.nanoTime();
+
+        stats = new Stats(total, ingestNanos, t1 - t0, t2 - t1, t3 - t2, t4 - t3);
+        return b;
+    }
+
+    // offsets[u] = sum of counts[0..u), computed per block in parallel
+    static int[] prefixSum(int[] counts){
+        int n = counts.length;
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        long[] blockSum = new long[blocks + 1];
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            long s = 0;
+            for(int i=b*BLOCK, end=Math.min(n, (b+1)*BLOCK); i<end; i++) s += counts[i];
+            blockSum[b+1] = s;
+        });
+        for(int b=0; b<blocks; b++) blockSum[b+1] += blockSum[b];
+        if(blockSum[blocks] > Integer.MAX_VALUE) throw new IllegalStateException("too many edges for an int CSR");
+
+        int[] offsets = new int[n + 1];
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int s = (int) blockSum[b];
+            for(int i=b*BLOCK, end=Math.min(n, (b+1)*BLOCK); i<end; i++){
+                offsets[i] = s;
+                s += counts[i];
+            }
+        });
+        offsets[n] = (int) blockSum[blocks];
+        return offsets;
+    }
+
+    // Sorts each row; with deduplicate, compacts rows into new arrays. Weighted rows
+    // are sorted as (target, weight) pairs packed into longs so the lightest comes first.
+    private void sortRows(Built b){
+
+        int n = b.n;
+        int[] offsets = b.offsets, targets = b.targets, weights = b.weights;
+        int[] unique = new int[n];
+
+        IntStream.range(0, n).parallel().forEach(u -> {
+            int lo = offsets[u], hi = offsets[u+1];
+            if(weights == null){
+                Arrays.sort(targets, lo, hi);
+            }else{
+                long[] row = new long[hi - lo];
+                for(int e=lo; e<hi; e++) row[e-lo] = ((long) targets[e] << 32) | (weights[e] + 0x80000000L);
+                Arrays.sort(row);
+                for(int e=lo; e<hi; e++){
+                    targets[e] = (int) (row[e-lo] >>> 32);
+                    weights[e] = (int) ((row[e-lo] & 0xffffffffL) - 0x80000000L);
+                }
+            }
+            int k = 0;
+            for(int e=lo; e<hi; e++){
+                if(!deduplicated || e == lo || targets[e] != targets[e-1]) k++;
+            }
+            unique[u] = k;
+        });
+        if(!deduplicated) return;
+
+        int[] newOffsets = prefixSum(unique);
+        int[] newTargets = new int[newOffsets[n]];
+        int[] newWeights = weights == null ? null : new int[newOffsets[n]];
+        IntStream.range(0, n).parallel().forEach(u -> {
+            int p = newOffsets[u];
+            for(int e=offsets[u]; e<offsets[u+1]; e++){
+                if(e != offsets[u] && targets[e] == targets[e-1]) continue;
+                newTargets[p] = targets[e];
+                if(newWeights != null) newWeights[p] = weights[e];
+                p++;
+            }
+        });
+        b.offsets = newOffsets;
+        b.targets = newTargets;
+        b.weights = newWeights;
+    }
+
+    // ids must lie in 0..nodes-1, or just be non-negative when the count is inferred
+    private void check(int u, int v){
+        if(u < 0 || v < 0 || (nodes >= 0 && (u >= nodes || v >= nodes))){
+            throw new IndexOutOfBoundsException("edge " + u + " -> " + v + " outside 0.." + (nodes >= 0 ? nodes - 1 : Integer.MAX_VALUE - 1));
+        }
+    }
+
+    private void ensureCapacity(int needed, boolean weighted){
+        if(weighted && weight == null){
+            if(size > 0) throw new IllegalStateException("weighted edges after unweighted ones");
+            weight = new int[from.length];
+        }else if(!weighted && weight != null){
+            throw new IllegalStateException("unweighted edges after weighted ones");
+        }
+        if(needed <= from.length) return;
+        int cap = Math.max(needed, from.length + (from.length >> 1));
+        from = Arrays.copyOf(from, cap);
+        to = Arrays.copyOf(to, cap);
+        if(weight != null) weight = Arrays.copyOf(weight, cap);
+    }
+}
@@ -0,0 +1,247 @@
+import java.util.*;
+
+/**
+ * Immutable compressed sparse row (CSR) adjacency.
+ *
+ * Neighbours of u are targets[offsets[u] .. offsets[u+1]-1], so the whole graph
+ * lives in two int arrays instead of one boxed ArrayList per node.
+ *
+ * Traversals reuse two scratch arrays allocated on first use, so after warm-up
+ * they do not allocate. Because of that scratch space a CSRGraph must not be
+ * traversed by two threads at the same time (the parallel engines built on top
+ * of it keep their own state).
+ */
+public final class CSRGraph {
+
+    final int nodes;
+    final int[] offsets; // length nodes+1
+    final int[] targets; // length offsets[nodes]
+
+    private int[] scratchA, scratchB;
+
+    CSRGraph(int nodes, int[] offsets, int[] targets){
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /** Build from Graph's adjacency list. Neighbour order is preserved. */
+    static CSRGraph fromAdjList(ArrayList<ArrayList<Integer>> adjList){
+
+        int n = adjList.size();
+        int[] offsets = new int[n+1];
+        for(int i=0; i<n; i++) offsets[i+1] = offsets[i] + adjList.get(i).size();
+
+        int[] targets = new int[offsets[n]];
+        for(int i=0; i<n; i++){
+            int pos = offsets[i];
+            for(int nei: adjList.get(i)) targets[pos++] = nei;
+        }
+        return new CSRGraph(n, offsets, targets);
+    }
+
+    /** Build from parallel edge arrays with a counting sort on the source node. */
+    static CSRGraph fromEdges(int n, int[] from, int[] to, boolean isDirected){
+
+        int m = from.length;
+        int[] offsets = new int[n+1];
+        for(int i=0; i<m; i++){
+            offsets[from[i]+1]++;
+            if(!isDirected) offsets[to[i]+1]++;
+        }
+        for(int i=0; i<n; i++) offsets[i+1] += offsets[i];
+
+        int[] targets = new int[offsets[n]];
+        int[] pos = Arrays.copyOf(offsets, n);
+        for(int i=0; i<m; i++){
+            targets[pos[from[i]]++] = to[i];
+            if(!isDirected) targets[pos[to[i]]++] = from[i];
+        }
+        return new CSRGraph(n, offsets, targets);
+    }
+
+    public int nodeCount(){
+        return nodes;
+    }
+
+    public int edgeCount(){
+        return offsets[nodes];
+    }
+
+    public int degree(int u){
+        return offsets[u+1] - offsets[u];
+    }
+
+    /** Graph with every edge reversed (in-edges become out-edges). */
+    public CSRGraph transpose(){
+
+        int[] tOffsets = new int[nodes+1];
+        for(int i=0; i<targets.length; i++) tOffsets[targets[i]+1]++;
+        for(int i=0; i<nodes; i++) tOffsets[i+1] += tOffsets[i];
+
+        int[] tTargets = new int[targets.length];
+        int[] pos = Arrays.copyOf(tOffsets, nodes);
+        for(int u=0; u<nodes; u++){
+            for(int e=offsets[u]; e<offsets[u+1]; e++){
+                tTargets[pos[targets[e]]++] = u;
+            }
+        }
+        return new CSRGraph(nodes, tOffsets, tTargets);
+    }
+
+    private int[] scratchA(){
+        if(scratchA == null) scratchA = new int[nodes];
+        return scratchA;
+    }
+
+    private int[] scratchB(){
+        if(scratchB == null) scratchB = new int[nodes];
+        return scratchB;
+    }
+
+    public void bfs(int start, boolean[] visited){
+
+        int[] queue = scratchA();
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        visited[start] = true;
+
+        while(head < tail){
+            int curr = queue[head++];
+            System.out.println("visited - "+curr);
+            for(int e=offsets[curr]; e<offsets[curr+1]; e++){
+                int nei = targets[e];
+                if(!visited[nei]){
+                    visited[nei] = true;
+                    queue[tail++] = nei;
+                }
+            }
+        }
+    }
+
+    /** Same output as Graph.bfsPrintLevels, one level of the int queue at a time. */
+    public void bfsPrintLevels(int start, boolean[] visited){
+
+        int[] queue = scratchA();
+        int head = 0, tail = 0, level = 0;
+        queue[tail++] = start;
+        visited[start] = true;
+
+        while(head < tail){
+            int levelEnd = tail;
+            while(head < levelEnd){
+                int curr = queue[head++];
+                System.out.println("visiting "+curr+" at level = "+level);
+                for(int e=offsets[curr]; e<offsets[curr+1]; e++){
+                    int next = targets[e];
+                    if(!visited[next]){
+                        visited[next] = true;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            level++;
+        }
+    }
+
+    /** Iterative DFS, visiting nodes in the same order as the recursive Graph.dfs. */
+    public void dfsIterative(int start, boolean[] visited){
+        visitComponent(start, visited, true);
+    }
+
+    private void visitComponent(int start, boolean[] visited, boolean print){
+
+        int[] stack = scratchA();
+        int[] cursor = scratchB(); // next edge to look at for the node on the stack
+        int top = 0;
+        stack[top] = start;
+        cursor[top] = offsets[start];
+        visited[start] = true;
+        if(print) System.out.println("currently visiting - "+start);
+
+        while(top >= 0){
+            int u = stack[top];
+            if(cursor[top] == offsets[u+1]){
+                top--;
+                continue;
+            }
+
+            int nei = targets[cursor[top]++];
+            if(!visited[nei]){
+                visited[nei] = true;
+                if(print) System.out.println("currently visiting - "+nei);
+                top++;
+                stack[top] = nei;
+                cursor[top] = offsets[nei];
+            }
+        }
+    }
+
+    public int countConnectedComponents(){
+
+        int count = 0;
+        boolean[] visited = new boolean[nodes];
+        for(int i=0; i<nodes; i++){
+            if(!visited[i]){
+                visitComponent(i, visited, false);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Two-colours every component, not just the one containing node 0. */
+    public boolean bipartiteCheck(){
+
+        int[] queue = scratchA();
+        int[] color = scratchB(); // 0 = uncolored, 1 = red, -1 = blue
+        Arrays.fill(color, 0);
+
+        for(int s=0; s<nodes; s++){
+            if(color[s] != 0) continue;
+
+            int head = 0, tail = 0;
+            queue[tail++] = s;
+            color[s] = 1;
+            while(head < tail){
+                int curr = queue[head++];
+                for(int e=offsets[curr]; e<offsets[curr+1]; e++){
+                    int nei = targets[e];
+                    if(color[nei] == 0){
+                        color[nei] = -color[curr];
+                        queue[tail++] = nei;
+                    }
+                    else if(color[nei] == color[curr])
+                        return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Kahn's algorithm; returns an empty array when the graph has a cycle. */
+    public int[] topologicalSort(){
+
+        int[] indegree = scratchB();
+        Arrays.fill(indegree, 0);
+        for(int e=0; e<targets.length; e++) indegree[targets[e]]++;
+
+        // the result array doubles as the queue
+        int[] res = new int[nodes];
+        int head = 0, tail = 0;
+        for(int i=0; i<nodes; i++){
+            if(indegree[i] == 0) res[tail++] = i;
+        }
+
+        while(head < tail){
+            int curr = res[head++];
+            for(int e=offsets[curr]; e<offsets[curr+1]; e++){
+                int nei = targets[e];
+                if(--indegree[nei] == 0) res[tail++] = nei;
+            }
+        }
+
+        if(tail == nodes) return res;
+        return new int[0];
+    }
+}
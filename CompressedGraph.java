@@ -0,0 +1,473 @@
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable adjacency with every neighbour list sorted and stored as variable
+ * length bytes, typically 2-4x smaller than the int arrays of CSRGraph on graphs
+ * whose ids have locality (see GraphReordering).
+ *
+ * The record of node u at data[offsets[u]..offsets[u+1]) is, in varints (7 bits
+ * per byte, high bit set on all but the last byte):
+ *   degree
+ *   reference        0, or u - r when part of the list is copied from node r
+ *   [copy blocks]    with a reference: block count, then run lengths over r's
+ *                    list alternating copy / skip, starting with copy
+ *   residuals        the neighbours not copied: the first as a zigzag-encoded
+ *                    difference from u, then gaps to the previous one
+ * Reference compression follows WebGraph (Boldi and Vigna): r is the node among
+ * the previous WINDOW that gives the shortest record, and chains of references
+ * are at most MAX_CHAIN long so decoding stays bounded.
+ *
+ * Lists without a reference are decoded while iterating; referenced ones are
+ * first merged into the cursor's buffer, using one reusable pair of buffers per
+ * chain level for the reference lists, so decoding does not allocate once the
+ * buffers have grown. Traversals share one cursor, so like CSRGraph a
+ * CompressedGraph must not be traversed by two threads at the same time;
+ * cursor() gives every thread its own.
+ *
+ * The traversals report nodes to a visitor instead of printing them; Graph keeps
+ * the printing versions.
+ */
+public final class CompressedGraph {
+
+    static final int WINDOW = 7;
+    static final int MAX_CHAIN = 3;
+
+    final int nodes;
+    final long edges;
+    final int[] offsets;  // length nodes+1, byte positions into data
+    final byte[] data;
+
+    private Cursor cursor;
+    private int[] scratch;
+
+    private CompressedGraph(int nodes, long edges, int[] offsets, byte[] data){
+        this.nodes = nodes;
+        this.edges = edges;
+        this.offsets = offsets;
+        this.data = data;
+    }
+
+    /** Compresses g; neighbour order is not kept, lists come back sorted. */
+    public static CompressedGraph of(CSRGraph g){
+
+        int n = g.nodes;
+        int[][] sorted = new int[WINDOW + 1][]; // ring of the last lists, by u % (WINDOW+1)
+        int[] chain = new int[n];                // reference chain length of every node
+        ByteSink out = new ByteSink(Math.max(16, g.targets.length));
+        ByteSink candidate = new ByteSink(64), best = new ByteSink(64);
+        int[] offsets = new int[n + 1];
+
+        for(int u=0; u<n; u++){
+            int[] list = Arrays.copyOfRange(g.targets, g.offsets[u], g.offsets[u+1]);
+            Arrays.sort(list);
+            sorted[u % (WINDOW + 1)] = list;
+
+            best.reset();
+            encode(u, list, null, 0, best);
+            for(int d=1; d<=WINDOW && d<=u && list.length > 0; d++){
+                int r = u - d;
+                if(chain[r] >= MAX_CHAIN || sorted[r % (WINDOW + 1)].length == 0) continue;
+                candidate.reset();
+                encode(u, list, sorted[r % (WINDOW + 1)], d, candidate);
+                if(candidate.size < best.size){
+                    ByteSink t = best; best = candidate; candidate = t;
+                    chain[u] = chain[r] + 1;
+                }
+            }
+            offsets[u] = out.size;
+            out.write(best);
+        }
+        offsets[n] = out.size;
+        return new CompressedGraph(n, g.targets.length, offsets, Arrays.copyOf(out.bytes, out.size));
+    }
+
+    public int nodeCount(){
+        return nodes;
+    }
+
+    public long edgeCount(){
+        return edges;
+    }
+
+    /** Bytes of the encoded lists plus their offsets. */
+    public long sizeInBytes(){
+        return data.length + 4L * offsets.length;
+    }
+
+    public double bitsPerEdge(){
+        return edges == 0 ? 0 : 8.0 * sizeInBytes() / edges;
+    }
+
+    public int degree(int u){
+        return (int) readVarint(data, offsets[u]);
+    }
+
+    /** Sorted neighbours of u. */
+    public int[] neighbours(int u){
+        int[] res = new int[degree(u)];
+        sharedCursor().decode(u, res, 0, 0);
+        return res;
+    }
+
+    public void forEachNeighbour(int u, IntConsumer action){
+        Cursor c = sharedCursor().reset(u);
+        for(int v; (v = c.next()) >= 0; ) action.accept(v);
+    }
+
+    /** A new cursor; cursors are cheap but not thread-safe, use one per thread. */
+    public Cursor cursor(){
+        return new Cursor();
+    }
+
+    /** Walks one neighbour list in increasing order. */
+    public final class Cursor {
+        private int node, pos, remaining, last;
+        private boolean buffered;
+        private int[] buffer = new int[16];
+        private int index;
+        // scratch of decode, one per reference followed: the reference list and
+        // the entries copied from it
+        private final int[][] refLists = new int[MAX_CHAIN][], copies = new int[MAX_CHAIN][];
+
+        private Cursor(){
+            for(int i=0; i<MAX_CHAIN; i++){
+                refLists[i] = new int[16];
+                copies[i] = new int[16];
+            }
+        }
+
+        public Cursor reset(int u){
+            int p = offsets[u];
+            long h = readVarint(data, p);
+            int degree = (int) h;
+            p += (int) (h >>> 32);
+            if(degree == 0){
+                remaining = 0;
+                buffered = false;
+                return this;
+            }
+            h = readVarint(data, p);
+            if((int) h != 0){
+                if(buffer.length < degree) buffer = new int[Math.max(degree, buffer.length * 2)];
+                decode(u, buffer, 0, 0);
+                buffered = true;
+                index = 0;
+                remaining = degree;
+                return this;
+            }
+            // no reference: stream the residuals straight out of data
+            buffered = false;
+            pos = p + (int) (h >>> 32);
+            remaining = degree;
+            last = Integer.MIN_VALUE;
+            node = u;
+            return this;
+        }
+
+        /** Next neighbour, or -1 when the list is exhausted. */
+        public int next(){
+            if(remaining == 0) return -1;
+            remaining--;
+            if(buffered) return buffer[index++];
+            long h = readVarint(data, pos);
+            pos += (int) (h >>> 32);
+            int x = (int) h;
+            last = last == Integer.MIN_VALUE ? node + unzigzag(x) : last + x;
+            return last;
+        }
+
+        // Writes u's sorted list to dst[off..] and returns the end index. Follows at
+        // most MAX_CHAIN references, which encoding guarantees; level is the number
+        // already followed and picks the scratch buffers.
+        int decode(int u, int[] dst, int off, int level){
+
+            int p = offsets[u];
+            long h = readVarint(data, p);
+            int degree = (int) h;
+            p += (int) (h >>> 32);
+            if(degree == 0) return off;
+            h = readVarint(data, p);
+            int ref = (int) h;
+            p += (int) (h >>> 32);
+
+            if(ref == 0){
+                int last = 0;
+                for(int i=0; i<degree; i++){
+                    h = readVarint(data, p);
+                    p += (int) (h >>> 32);
+                    last = i == 0 ? u + unzigzag((int) h) : last + (int) h;
+                    dst[off + i] = last;
+                }
+                return off + degree;
+            }
+
+            // copied entries of the reference list, then merged with the residuals
+            int r = u - ref;
+            int refDegree = degree(r);
+            if(refLists[level].length < refDegree) refLists[level] = new int[Math.max(refDegree, refLists[level].length * 2)];
+            if(copies[level].length < degree) copies[level] = new int[Math.max(degree, copies[level].length * 2)];
+            int[] refList = refLists[level], copy = copies[level];
+            decode(r, refList, 0, level + 1);
+            int copied = 0;
+            h = readVarint(data, p);
+            int blocks = (int) h;
+            p += (int) (h >>> 32);
+            int at = 0;
+            for(int b=0; b<blocks; b++){
+                h = readVarint(data, p);
+                p += (int) (h >>> 32);
+                int len = (int) h;
+                if((b & 1) == 0) for(int i=0; i<len; i++) copy[copied++] = refList[at + i];
+                at += len;
+            }
+
+            int residuals = degree - copied, i = 0, j = 0, k = off, last = 0;
+            int next = Integer.MAX_VALUE;
+            if(residuals > 0){
+                h = readVarint(data, p);
+                p += (int) (h >>> 32);
+                next = last = u + unzigzag((int) h);
+            }
+            while(i < copied || j < residuals){
+                if(j < residuals && (i == copied || next <= copy[i])){
+                    dst[k++] = next;
+                    if(++j < residuals){
+                        h = readVarint(data, p);
+                        p += (int) (h >>> 32);
+                        next = last = last + (int) h;
+                    }
+                }else{
+                    dst[k++] = copy[i++];
+                }
+            }
+            return k;
+        }
+    }
+
+    /** BFS from start, calling visit on every node in the order it is dequeued. */
+    public void bfs(int start, boolean[] visited, IntConsumer visit){
+
+        int[] queue = scratch();
+        Cursor c = sharedCursor();
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        visited[start] = true;
+
+        while(head < tail){
+            int curr = queue[head++];
+            visit.accept(curr);
+            c.reset(curr);
+            for(int nei; (nei = c.next()) >= 0; ){
+                if(!visited[nei]){
+                    visited[nei] = true;
+                    queue[tail++] = nei;
+                }
+            }
+        }
+    }
+
+    /** BFS level of every node from start, -1 when unreachable. */
+    public int[] bfsLevels(int start){
+
+        int[] level = new int[nodes];
+        Arrays.fill(level, -1);
+        int[] queue = scratch();
+        Cursor c = sharedCursor();
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        level[start] = 0;
+
+        while(head < tail){
+            int curr = queue[head++];
+            c.reset(curr);
+            for(int nei; (nei = c.next()) >= 0; ){
+                if(level[nei] < 0){
+                    level[nei] = level[curr] + 1;
+                    queue[tail++] = nei;
+                }
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Iterative DFS in the order of a recursive one over the sorted lists,
+     * calling visit on every node when it is first reached. The lists of the
+     * nodes on the stack are decoded once into a shared buffer that grows and
+     * shrinks with the stack.
+     */
+    public void dfsIterative(int start, boolean[] visited, IntConsumer visit){
+
+        // frame i walks lists[framePos[i]..frameEnd[i]); children decode after it
+        int[] frameEnd = new int[16], framePos = new int[16];
+        int[] lists = new int[Math.max(16, degree(start))];
+        Cursor c = sharedCursor();
+        int top = 0;
+
+        visited[start] = true;
+        visit.accept(start);
+        frameEnd[0] = c.decode(start, lists, 0, 0);
+        framePos[0] = 0;
+
+        while(top >= 0){
+            if(framePos[top] == frameEnd[top]){
+                top--;
+                continue;
+            }
+            int nei = lists[framePos[top]++];
+            if(visited[nei]) continue;
+            visited[nei] = true;
+            visit.accept(nei);
+
+            int at = frameEnd[top], d = degree(nei);
+            if(at + d > lists.length) lists = Arrays.copyOf(lists, Math.max(at + d, lists.length * 2));
+            if(++top == frameEnd.length){
+                frameEnd = Arrays.copyOf(frameEnd, top * 2);
+                framePos = Arrays.copyOf(framePos, top * 2);
+            }
+            framePos[top] = at;
+            frameEnd[top] = c.decode(nei, lists, at, 0);
+        }
+    }
+
+    /** Kahn's algorithm; returns an empty array when the graph has a cycle. */
+    public int[] topologicalSort(){
+
+        int[] indegree = new int[nodes];
+        Cursor c = sharedCursor();
+        for(int u=0; u<nodes; u++){
+            c.reset(u);
+            for(int v; (v = c.next()) >= 0; ) indegree[v]++;
+        }
+
+        int[] res = new int[nodes];
+        int head = 0, tail = 0;
+        for(int i=0; i<nodes; i++){
+            if(indegree[i] == 0) res[tail++] = i;
+        }
+        while(head < tail){
+            int curr = res[head++];
+            c.reset(curr);
+            for(int nei; (nei = c.next()) >= 0; ){
+                if(--indegree[nei] == 0) res[tail++] = nei;
+            }
+        }
+
+        if(tail == nodes) return res;
+        return new int[0];
+    }
+
+    /** Decompresses into a CSRGraph with sorted neighbour lists. */
+    public CSRGraph toCSRGraph(){
+        int[] csrOffsets = new int[nodes + 1];
+        for(int u=0; u<nodes; u++) csrOffsets[u+1] = csrOffsets[u] + degree(u);
+        int[] targets = new int[csrOffsets[nodes]];
+        Cursor c = sharedCursor();
+        for(int u=0; u<nodes; u++) c.decode(u, targets, csrOffsets[u], 0);
+        return new CSRGraph(nodes, csrOffsets, targets);
+    }
+
+    private Cursor sharedCursor(){
+        if(cursor == null) cursor = new Cursor();
+        return cursor;
+    }
+
+    private int[] scratch(){
+        if(scratch == null) scratch = new int[nodes];
+        return scratch;
+    }
+
+    // Appends u's record with list encoded against ref (the list of node u - d), or
+    // without a reference when ref is null.
+    private static void encode(int u, int[] list, int[] ref, int d, ByteSink out){
+
+        out.varint(list.length);
+        if(list.length == 0) return;
+        out.varint(ref == null ? 0 : d);
+
+        int[] residual = list;
+        int residuals = list.length;
+        if(ref != null){
+            // copy blocks: runs over ref alternating copy / skip, trailing skip dropped
+            int[] blocks = new int[2 * ref.length + 1];
+            int blockCount = 0, run = 0;
+            boolean copying = true;
+            residual = new int[list.length];
+            residuals = 0;
+            int i = 0, j = 0;
+            while(i < ref.length){
+                boolean match = j < list.length && ref[i] == list[j];
+                if(!match && j < list.length && list[j] < ref[i]){
+                    residual[residuals++] = list[j++];
+                    continue;
+                }
+                if(match != copying){
+                    blocks[blockCount++] = run;
+                    run = 0;
+                    copying = match;
+                }
+                run++;
+                i++;
+                if(match) j++;
+            }
+            while(j < list.length) residual[residuals++] = list[j++];
+            if(copying) blocks[blockCount++] = run;
+
+            out.varint(blockCount);
+            for(int b=0; b<blockCount; b++) out.varint(blocks[b]);
+        }
+
+        for(int i=0; i<residuals; i++){
+            out.varint(i == 0 ? zigzag(residual[0] - u) : residual[i] - residual[i-1]);
+        }
+    }
+
+    // value in the low 32 bits, bytes read in the high 32
+    static long readVarint(byte[] data, int p){
+        int v = 0, shift = 0, start = p;
+        byte b;
+        do{
+            b = data[p++];
+            v |= (b & 0x7f) << shift;
+            shift += 7;
+        }while(b < 0);
+        return ((long) (p - start) << 32) | (v & 0xffffffffL);
+    }
+
+    static int zigzag(int x){
+        return (x << 1) ^ (x >> 31);
+    }
+
+    static int unzigzag(int x){
+        return (x >>> 1) ^ -(x & 1);
+    }
+
+    private static final class ByteSink {
+        byte[] bytes;
+        int size;
+
+        ByteSink(int capacity){
+            bytes = new byte[capacity];
+        }
+
+        void reset(){
+            size = 0;
+        }
+
+        void varint(int v){
+            if(size + 5 > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(size + 5, bytes.length * 2));
+            while((v & ~0x7f) != 0){
+                bytes[size++] = (byte) ((v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+
+        void write(ByteSink other){
+            if(size + other.size > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(size + other.size, bytes.length * 2));
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free disjoint set union that can be shared between threads.
+ *
+ * Every node owns one long: the low 32 bits are its parent, the high 32 bits its
+ * set size (only meaningful while the node is a root, frozen once it is linked).
+ * Packing both into one word lets a single CAS both check that a node is still a
+ * root with the size we decided on and link it.
+ *
+ * Union by size: the root that is smaller by (size, id) is hooked under the other.
+ * Sizes only grow while a node is a root, so two threads can never hook two roots
+ * under each other. find uses CAS path halving; a lost CAS is simply ignored.
+ *
+ * Only find, union and connected are linearizable. sizeOf and count are not:
+ * the size added to the new root is published by a second CAS right after the
+ * link, and the component counter is decremented after that, so while unions are
+ * in flight sizeOf can report a set smaller than it already is and count more
+ * components than there are. Both are exact once concurrent unions have
+ * returned (e.g. after joining the worker threads), so read them then.
+ */
+public class ConcurrentDSU {
+
+    private final AtomicLongArray entries;
+    private final AtomicInteger components;
+
+    public ConcurrentDSU(int n){
+        entries = new AtomicLongArray(n);
+        components = new AtomicInteger(n);
+        for(int i=0; i<n; i++) entries.set(i, pack(1, i));
+    }
+
+    private static long pack(int size, int parent){
+        return ((long) size << 32) | (parent & 0xffffffffL);
+    }
+
+    private static int parentBits(long entry){
+        return (int) entry;
+    }
+
+    private static int sizeBits(long entry){
+        return (int) (entry >>> 32);
+    }
+
+    // find with path halving: point x at its grandparent, then continue from there
+    public int find(int x){
+
+        while(true){
+            long e = entries.get(x);
+            int p = parentBits(e);
+            if(p == x) return x;
+
+            int gp = parentBits(entries.get(p));
+            if(gp == p) return p;
+
+            entries.compareAndSet(x, e, pack(sizeBits(e), gp));
+            x = gp;
+        }
+    }
+
+    public boolean union(int a, int b){
+
+        while(true){
+            int ra = find(a);
+            int rb = find(b);
+            if(ra == rb) return false; // already in same set
+
+            long ea = entries.get(ra);
+            long eb = entries.get(rb);
+            if(parentBits(ea) != ra || parentBits(eb) != rb) continue; // one of them got linked meanwhile
+
+            int sa = sizeBits(ea), sb = sizeBits(eb);
+            if(sa > sb || (sa == sb && ra > rb)){ // make ra the smaller one
+                int tr = ra; ra = rb; rb = tr;
+                long te = ea; ea = eb; eb = te;
+                int ts = sa; sa = sb; sb = ts;
+            }
+
+            // merging ra into rb; fails if ra was linked or grew since we read it
+            if(entries.compareAndSet(ra, ea, pack(sa, rb))){
+                addSize(rb, sa);
+                components.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    // rb may itself have been linked by now, so the size goes to whatever root it ended under
+    private void addSize(int r, int delta){
+
+        while(true){
+            long e = entries.get(r);
+            int p = parentBits(e);
+            if(p != r){
+                r = p;
+                continue;
+            }
+            if(entries.compareAndSet(r, e, pack(sizeBits(e) + delta, r))) return;
+        }
+    }
+
+    public boolean connected(int a, int b){
+
+        while(true){
+            int ra = find(a);
+            int rb = find(b);
+            if(ra == rb) return true;
+            // ra still a root means ra and rb were different roots when rb was found
+            if(parentBits(entries.get(ra)) == ra) return false;
+        }
+    }
+
+    // not linearizable, can lag by unions in flight; see the class comment
+    public int sizeOf(int x){
+        return sizeBits(entries.get(find(x)));
+    }
+
+    // not linearizable, can lag by unions in flight; see the class comment
+    public int count(){
+        return components.get();
+    }
+}
@@ -0,0 +1,201 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel connected components using Afforest (Sutton, Ben-Nun, Barak).
+ *
+ * comp[] is a forest of parent pointers where every link points from the higher
+ * id to the lower one, so concurrent CAS hooking can never build a cycle.
+ *   1. link each node to its first NEIGHBOR_ROUNDS neighbours, then compress
+ *   2. sample comp[] to guess the giant component
+ *   3. link the remaining edges, skipping nodes already in the giant component
+ *   4. compress again and relabel roots to 0..count-1
+ *
+ * Edges are treated as undirected. Inputs smaller than SEQUENTIAL_THRESHOLD
+ * edges go through a plain DSU instead.
+ */
+public final class ConnectedComponents {
+
+    static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+    static final int NEIGHBOR_ROUNDS = 2;
+    static final int SAMPLES = 1024;
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    public static final class Result {
+        final int[] label; // label[v] in [0, count)
+        final int count;
+
+        Result(int[] label, int count){
+            this.label = label;
+            this.count = count;
+        }
+
+        public int[] labels(){ return label; }
+        public int count(){ return count; }
+    }
+
+    private ConnectedComponents(){}
+
+    /** Components of a graph whose CSR stores both directions of every edge. */
+    public static Result of(CSRGraph g){
+        return of(g, g);
+    }
+
+    /**
+     * Weakly connected components of a directed graph. `in` is the transpose of
+     * `out`; it is needed so that nodes outside the giant component still see
+     * edges coming from inside it.
+     */
+    public static Result of(CSRGraph out, CSRGraph in){
+
+        int n = out.nodes;
+        if(out.edgeCount() < SEQUENTIAL_THRESHOLD){
+            DSU dsu = new DSU(n);
+            for(int u=0; u<n; u++){
+                for(int e=out.offsets[u]; e<out.offsets[u+1]; e++) dsu.union(u, out.targets[e]);
+            }
+            return fromDSU(dsu, n);
+        }
+
+        int[] comp = new int[n];
+        IntStream.range(0, n).parallel().forEach(i -> comp[i] = i);
+
+        for(int r=0; r<NEIGHBOR_ROUNDS; r++){
+            final int round = r;
+            IntStream.range(0, n).parallel().forEach(u -> {
+                int e = out.offsets[u] + round;
+                if(e < out.offsets[u+1]) link(comp, u, out.targets[e]);
+            });
+            compress(comp);
+        }
+
+        int giant = sampleFrequentComponent(comp);
+
+        IntStream.range(0, n).parallel().forEach(u -> {
+            if(comp[u] == giant) return;
+            for(int e=out.offsets[u]+NEIGHBOR_ROUNDS; e<out.offsets[u+1]; e++) link(comp, u, out.targets[e]);
+            if(in != out){
+                for(int e=in.offsets[u]; e<in.offsets[u+1]; e++) link(comp, u, in.targets[e]);
+            }
+        });
+        compress(comp);
+
+        return relabel(comp);
+    }
+
+    /** Components of n nodes joined by the edges (from[i], to[i]). */
+    public static Result of(int n, int[] from, int[] to){
+
+        int m = from.length;
+        if(m < SEQUENTIAL_THRESHOLD){
+            DSU dsu = new DSU(n);
+            for(int i=0; i<m; i++) dsu.union(from[i], to[i]);
+            return fromDSU(dsu, n);
+        }
+
+        int[] comp = new int[n];
+        IntStream.range(0, n).parallel().forEach(i -> comp[i] = i);
+
+        // an edge list has no per-node neighbour order, so the sampling rounds use a
+        // strided subset of the edges instead
+        int stride = 8;
+        IntStream.range(0, (m + stride - 1) / stride).parallel().forEach(i -> link(comp, from[i*stride], to[i*stride]));
+        compress(comp);
+
+        int giant = sampleFrequentComponent(comp);
+
+        IntStream.range(0, m).parallel().forEach(i -> {
+            if(i % stride == 0) return;
+            int u = from[i], v = to[i];
+            if(comp[u] == giant && comp[v] == giant) return;
+            link(comp, u, v);
+        });
+        compress(comp);
+
+        return relabel(comp);
+    }
+
+    /** Same as of(n, from, to) for edges in DSU's int[][] {u, v} shape. */
+    public static Result of(int n, int[][] edges){
+        int m = edges.length;
+        int[] from = new int[m], to = new int[m];
+        IntStream.range(0, m).parallel().forEach(i -> {
+            from[i] = edges[i][0];
+            to[i] = edges[i][1];
+        });
+        return of(n, from, to);
+    }
+
+    // hook the higher root under the lower one; retry from the new roots when a CAS loses
+    static void link(int[] comp, int u, int v){
+
+        int p1 = (int) INTS.getOpaque(comp, u);
+        int p2 = (int) INTS.getOpaque(comp, v);
+
+        while(p1 != p2){
+            int high = Math.max(p1, p2);
+            int low = Math.min(p1, p2);
+            int pHigh = (int) INTS.getOpaque(comp, high);
+
+            if(pHigh == low) break; // someone already linked them
+            if(pHigh == high && INTS.compareAndSet(comp, high, high, low)) break;
+
+            p1 = (int) INTS.getOpaque(comp, (int) INTS.getOpaque(comp, high));
+            p2 = (int) INTS.getOpaque(comp, low);
+        }
+    }
+
+    // pointer jumping until every node points straight at its root
+    static void compress(int[] comp){
+        IntStream.range(0, comp.length).parallel().forEach(i -> {
+            while(comp[i] != comp[comp[i]]) comp[i] = comp[comp[i]];
+        });
+    }
+
+    private static int sampleFrequentComponent(int[] comp){
+
+        HashMap<Integer, Integer> counts = new HashMap<>();
+        Random random = new Random(comp.length);
+        int best = 0, bestCount = -1;
+        for(int i=0; i<SAMPLES; i++){
+            int c = comp[random.nextInt(comp.length)];
+            int cnt = counts.merge(c, 1, Integer::sum);
+            if(cnt > bestCount){
+                best = c;
+                bestCount = cnt;
+            }
+        }
+        return best;
+    }
+
+    // after compress every comp[i] is a root, and roots are exactly the i with comp[i] == i
+    private static Result relabel(int[] comp){
+
+        int n = comp.length;
+        int[] rootId = new int[n];
+        int count = 0;
+        for(int i=0; i<n; i++){
+            if(comp[i] == i) rootId[i] = count++;
+        }
+        int[] label = new int[n];
+        IntStream.range(0, n).parallel().forEach(i -> label[i] = rootId[comp[i]]);
+        return new Result(label, count);
+    }
+
+    private static Result fromDSU(DSU dsu, int n){
+
+        int[] rootId = new int[n];
+        Arrays.fill(rootId, -1);
+        int[] label = new int[n];
+        int count = 0;
+        for(int i=0; i<n; i++){
+            int r = dsu.find(i);
+            if(rootId[r] == -1) rootId[r] = count++;
+            label[i] = rootId[r];
+        }
+        return new Result(label, count);
+    }
+}
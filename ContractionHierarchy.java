@@ -0,0 +1,416 @@
+import java.io.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Contraction Hierarchies (Geisberger et al.) for fast point-to-point distances.
+ *
+ * Preprocessing contracts nodes one "round" at a time. Each round:
+ *   1. picks an independent set of nodes whose priority (edge difference plus
+ *      contracted neighbours) is a local minimum among their neighbours
+ *   2. runs the witness searches for all of them in parallel; a shortcut u->w is
+ *      needed when no path avoiding v is as short as u->v->w
+ *   3. applies the shortcuts, removes the contracted nodes and refreshes the
+ *      priorities of their neighbours
+ * Nodes in one round share no edge, so their witness searches only read the
+ * graph and can run concurrently.
+ *
+ * The result keeps only "upward" edges: up holds u->x with rank[x] > rank[u],
+ * down holds the reversed in-edges x->u with rank[x] > rank[u]. A query runs
+ * Dijkstra upward from the source in up and from the target in down and takes
+ * the best meeting node; both searches stay tiny on road-like graphs.
+ *
+ * A shortcut weighs as much as the path it replaces, which can exceed an int
+ * even though every input weight fits in one, so shortcut and upward weights
+ * are kept as long throughout.
+ *
+ * The hierarchy can be written to and read back from a stream.
+ */
+public final class ContractionHierarchy {
+
+    static final long INF = DijkstraEngine.INF;
+    static final int WITNESS_SETTLE_LIMIT = 500;
+    static final int PRIORITY_SETTLE_LIMIT = 50; // priorities only need an estimate
+    private static final int MAGIC = 0x43484832; // "CHH2", long weights
+    private static final int MAGIC_INT_WEIGHTS = 0x43484831; // "CHH1", streams from before
+
+    final int nodes;
+    final int[] rank;
+    final CSRGraph up;
+    final CSRGraph down;
+    final long[] upWeights, downWeights; // by edge index of up / down
+    private final ThreadLocal<DijkstraEngine.Workspace[]> workspaces;
+
+    ContractionHierarchy(int[] rank, CSRGraph up, long[] upWeights, CSRGraph down, long[] downWeights){
+        this.nodes = rank.length;
+        this.rank = rank;
+        this.up = up;
+        this.down = down;
+        this.upWeights = upWeights;
+        this.downWeights = downWeights;
+        this.workspaces = ThreadLocal.withInitial(() ->
+            new DijkstraEngine.Workspace[]{ new DijkstraEngine.Workspace(nodes), new DijkstraEngine.Workspace(nodes) });
+    }
+
+    /** Shortest distance from src to target, or INF when unreachable. */
+    public long query(int src, int target){
+
+        DijkstraEngine.Workspace[] pair = workspaces.get();
+        DijkstraEngine.Workspace fwd = pair[0], bwd = pair[1];
+        fwd.reset();
+        bwd.reset();
+        fwd.relax(src, 0, -1);
+        bwd.relax(target, 0, -1);
+        long best = INF;
+
+        while(true){
+            boolean fwdDone = fwd.heap.isEmpty() || fwd.heap.peekKey() >= best;
+            boolean bwdDone = bwd.heap.isEmpty() || bwd.heap.peekKey() >= best;
+            if(fwdDone && bwdDone) break;
+
+            boolean forward = bwdDone || (!fwdDone && fwd.heap.peekKey() <= bwd.heap.peekKey());
+            DijkstraEngine.Workspace side = forward ? fwd : bwd;
+            DijkstraEngine.Workspace other = forward ? bwd : fwd;
+            CSRGraph g = forward ? up : down;
+            long[] weights = forward ? upWeights : downWeights;
+
+            int u = side.heap.poll();
+            side.settled++;
+            long du = side.dist[u];
+            if(other.dist[u] != INF) best = Math.min(best, du + other.dist[u]);
+
+            for(int e=g.offsets[u]; e<g.offsets[u+1]; e++){
+                int v = g.targets[e];
+                long nd = du + weights[e];
+                if(nd < side.dist[v]) side.relax(v, nd, u);
+            }
+        }
+        return best;
+    }
+
+    /** Nodes settled by this thread's last query, both directions together. */
+    public int lastSettledCount(){
+        DijkstraEngine.Workspace[] pair = workspaces.get();
+        return pair[0].settled + pair[1].settled;
+    }
+
+    public static ContractionHierarchy build(WeightedCSRGraph graph){
+        if(graph.hasNegativeWeights()) throw new IllegalArgumentException("contraction needs non-negative weights");
+        return new Builder(graph).build();
+    }
+
+    public void writeTo(OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+        out.writeInt(MAGIC);
+        out.writeInt(nodes);
+        writeInts(out, rank);
+        writeGraph(out, up, upWeights);
+        writeGraph(out, down, downWeights);
+        out.flush();
+    }
+
+    /** Reads a hierarchy written by writeTo, including the older int-weight format. */
+    public static ContractionHierarchy readFrom(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+        int magic = in.readInt();
+        if(magic != MAGIC && magic != MAGIC_INT_WEIGHTS) throw new IOException("not a contraction hierarchy stream");
+        boolean longWeights = magic == MAGIC;
+        int n = in.readInt();
+        int[] rank = readInts(in);
+        CSRGraph up = new CSRGraph(n, readInts(in), readInts(in));
+        long[] upWeights = longWeights ? readLongs(in) : widen(readInts(in));
+        CSRGraph down = new CSRGraph(n, readInts(in), readInts(in));
+        long[] downWeights = longWeights ? readLongs(in) : widen(readInts(in));
+        return new ContractionHierarchy(rank, up, upWeights, down, downWeights);
+    }
+
+    private static void writeGraph(DataOutputStream out, CSRGraph g, long[] weights) throws IOException {
+        writeInts(out, g.offsets);
+        writeInts(out, g.targets);
+        out.writeInt(weights.length);
+        for(long w: weights) out.writeLong(w);
+    }
+
+    private static long[] readLongs(DataInputStream in) throws IOException {
+        long[] a = new long[in.readInt()];
+        for(int i=0; i<a.length; i++) a[i] = in.readLong();
+        return a;
+    }
+
+    private static long[] widen(int[] a){
+        long[] res = new long[a.length];
+        for(int i=0; i<a.length; i++) res[i] = a[i];
+        return res;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] a) throws IOException {
+        out.writeInt(a.length);
+        for(int x: a) out.writeInt(x);
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] a = new int[in.readInt()];
+        for(int i=0; i<a.length; i++) a[i] = in.readInt();
+        return a;
+    }
+
+    /** Mutable overlay graph used only during preprocessing. */
+    private static final class Builder {
+
+        final int n;
+        // remaining graph: adjacency among nodes that are not contracted yet
+        final int[][] outTo, inTo;
+        final long[][] outW, inW;
+        final int[] outSize, inSize;
+        final int[] priority, deletedNeighbours, rank;
+        final boolean[] contracted;
+        final boolean[] inRound; // selected in the current round, not usable as witnesses
+        final ThreadLocal<DijkstraEngine.Workspace> workspaces;
+
+        // upward edges collected as contraction goes
+        int[] upFrom = new int[16], upTo = new int[16];
+        int[] downFrom = new int[16], downTo = new int[16];
+        long[] upW = new long[16], downW = new long[16];
+        int upCount, downCount;
+
+        Builder(WeightedCSRGraph g){
+            n = g.nodes;
+            outTo = new int[n][]; outW = new long[n][];
+            inTo = new int[n][]; inW = new long[n][];
+            outSize = new int[n]; inSize = new int[n];
+            for(int u=0; u<n; u++){
+                outTo[u] = new int[Math.max(2, g.degree(u))];
+                outW[u] = new long[outTo[u].length];
+                inTo[u] = new int[2];
+                inW[u] = new long[2];
+            }
+            for(int u=0; u<n; u++){
+                for(int e=g.offsets[u]; e<g.offsets[u+1]; e++){
+                    int v = g.targets[e];
+                    if(v != u) addArc(u, v, g.weights[e]);
+                }
+            }
+            priority = new int[n];
+            deletedNeighbours = new int[n];
+            rank = new int[n];
+            contracted = new boolean[n];
+            inRound = new boolean[n];
+            workspaces = ThreadLocal.withInitial(() -> new DijkstraEngine.Workspace(n));
+        }
+
+        ContractionHierarchy build(){
+
+            IntStream.range(0, n).parallel().forEach(v -> priority[v] = computePriority(v));
+
+            int[] remaining = IntStream.range(0, n).toArray();
+            int remainingCount = n;
+            int nextRank = 0;
+
+            while(remainingCount > 0){
+
+                final int[] rem = remaining;
+                int[] selected = IntStream.range(0, remainingCount).parallel()
+                    .map(i -> rem[i]).filter(this::isLocalMinimum).toArray();
+                for(int v: selected) inRound[v] = true;
+
+                // witness searches for the whole independent set run concurrently. A witness
+                // may not pass through another node of this round, otherwise two nodes could
+                // each skip a shortcut relying on a path through the other.
+                long[][] shortcuts = new long[selected.length][];
+                IntStream.range(0, selected.length).parallel()
+                    .forEach(i -> shortcuts[i] = findShortcuts(selected[i], workspaces.get(), WITNESS_SETTLE_LIMIT));
+
+                for(int i=0; i<selected.length; i++){
+                    int v = selected[i];
+                    rank[v] = nextRank++;
+                    contract(v, shortcuts[i]);
+                    inRound[v] = false;
+                }
+
+                // neighbours of contracted nodes changed, refresh their priority
+                int[] affected = IntStream.of(selected).flatMap(this::neighboursOf).distinct().toArray();
+                IntStream.of(affected).parallel().forEach(x -> priority[x] = computePriority(x));
+
+                int kept = 0;
+                for(int i=0; i<remainingCount; i++){
+                    if(!contracted[remaining[i]]) remaining[kept++] = remaining[i];
+                }
+                remainingCount = kept;
+            }
+
+            long[] upWeights = new long[upCount], downWeights = new long[downCount];
+            CSRGraph upGraph = layout(n, upFrom, upTo, upW, upCount, upWeights);
+            CSRGraph downGraph = layout(n, downFrom, downTo, downW, downCount, downWeights);
+            return new ContractionHierarchy(rank, upGraph, upWeights, downGraph, downWeights);
+        }
+
+        // CSR over the first count edges from[i] -> to[i]; weights gets w[i] at the edge's index
+        private static CSRGraph layout(int n, int[] from, int[] to, long[] w, int count, long[] weights){
+            int[] offsets = new int[n+1];
+            for(int i=0; i<count; i++) offsets[from[i]+1]++;
+            for(int i=0; i<n; i++) offsets[i+1] += offsets[i];
+            int[] targets = new int[count];
+            int[] pos = Arrays.copyOf(offsets, n);
+            for(int i=0; i<count; i++){
+                int p = pos[from[i]]++;
+                targets[p] = to[i];
+                weights[p] = w[i];
+            }
+            return new CSRGraph(n, offsets, targets);
+        }
+
+        // (priority, id) strictly smaller than every remaining neighbour
+        private boolean isLocalMinimum(int v){
+            for(int i=0; i<outSize[v]; i++){
+                if(before(outTo[v][i], v)) return false;
+            }
+            for(int i=0; i<inSize[v]; i++){
+                if(before(inTo[v][i], v)) return false;
+            }
+            return true;
+        }
+
+        private boolean before(int a, int b){
+            return priority[a] < priority[b] || (priority[a] == priority[b] && a < b);
+        }
+
+        // a contracted node keeps its own lists, so this still works after contract(v)
+        private IntStream neighboursOf(int v){
+            return IntStream.concat(IntStream.of(outTo[v]).limit(outSize[v]), IntStream.of(inTo[v]).limit(inSize[v]));
+        }
+
+        private int computePriority(int v){
+            int shortcuts = findShortcuts(v, workspaces.get(), PRIORITY_SETTLE_LIMIT).length / 3;
+            int edgeDifference = shortcuts - outSize[v] - inSize[v];
+            return edgeDifference + deletedNeighbours[v];
+        }
+
+        // shortcuts needed if v were contracted now, as (from, to, weight) triples
+        private long[] findShortcuts(int v, DijkstraEngine.Workspace ws, int settleLimit){
+
+            long[] res = new long[0];
+            int count = 0;
+
+            long maxOut = 0;
+            for(int j=0; j<outSize[v]; j++) maxOut = Math.max(maxOut, outW[v][j]);
+
+            for(int i=0; i<inSize[v]; i++){
+                int u = inTo[v][i];
+                long wuv = inW[v][i];
+                witnessSearch(ws, u, v, wuv + maxOut, settleLimit);
+
+                for(int j=0; j<outSize[v]; j++){
+                    int w = outTo[v][j];
+                    if(w == u) continue;
+                    long via = wuv + outW[v][j];
+                    if(ws.dist[w] <= via) continue; // witness path exists
+
+                    if(count + 3 > res.length) res = Arrays.copyOf(res, Math.max(12, res.length * 2));
+                    res[count++] = u;
+                    res[count++] = w;
+                    res[count++] = via;
+                }
+            }
+            return Arrays.copyOf(res, count);
+        }
+
+        // bounded Dijkstra from source in the remaining graph without passing through skip
+        private void witnessSearch(DijkstraEngine.Workspace ws, int source, int skip, long maxDist, int settleLimit){
+
+            ws.reset();
+            ws.relax(source, 0, -1);
+            while(!ws.heap.isEmpty() && ws.heap.peekKey() <= maxDist && ws.settled < settleLimit){
+                int u = ws.heap.poll();
+                ws.settled++;
+                long du = ws.dist[u];
+                for(int i=0; i<outSize[u]; i++){
+                    int x = outTo[u][i];
+                    if(x == skip || inRound[x]) continue;
+                    long nd = du + outW[u][i];
+                    if(nd < ws.dist[x]) ws.relax(x, nd, u);
+                }
+            }
+        }
+
+        private void contract(int v, long[] shortcuts){
+
+            contracted[v] = true;
+
+            // edges still attached to v lead to higher ranked nodes
+            for(int i=0; i<outSize[v]; i++){
+                int x = outTo[v][i];
+                addUp(v, x, outW[v][i]);
+                removeArc(inTo, inW, inSize, x, v);
+                deletedNeighbours[x]++;
+            }
+            for(int i=0; i<inSize[v]; i++){
+                int x = inTo[v][i];
+                addDown(v, x, inW[v][i]);
+                removeArc(outTo, outW, outSize, x, v);
+                deletedNeighbours[x]++;
+            }
+
+            for(int i=0; i<shortcuts.length; i+=3) addArc((int) shortcuts[i], (int) shortcuts[i+1], shortcuts[i+2]);
+        }
+
+        // u->x with weight w, keeping the lighter one if the arc already exists
+        private void addArc(int u, int x, long w){
+            for(int i=0; i<outSize[u]; i++){
+                if(outTo[u][i] == x){
+                    if(w < outW[u][i]){
+                        outW[u][i] = w;
+                        for(int j=0; j<inSize[x]; j++){
+                            if(inTo[x][j] == u) inW[x][j] = w;
+                        }
+                    }
+                    return;
+                }
+            }
+            append(outTo, outW, outSize, u, x, w);
+            append(inTo, inW, inSize, x, u, w);
+        }
+
+        private static void append(int[][] to, long[][] w, int[] size, int u, int x, long weight){
+            if(size[u] == to[u].length){
+                to[u] = Arrays.copyOf(to[u], to[u].length * 2);
+                w[u] = Arrays.copyOf(w[u], w[u].length * 2);
+            }
+            to[u][size[u]] = x;
+            w[u][size[u]] = weight;
+            size[u]++;
+        }
+
+        private static void removeArc(int[][] to, long[][] w, int[] size, int u, int x){
+            for(int i=0; i<size[u]; i++){
+                if(to[u][i] == x){
+                    int last = --size[u];
+                    to[u][i] = to[u][last];
+                    w[u][i] = w[u][last];
+                    return;
+                }
+            }
+        }
+
+        private void addUp(int from, int to, long w){
+            if(upCount == upFrom.length){
+                upFrom = Arrays.copyOf(upFrom, upCount * 2);
+                upTo = Arrays.copyOf(upTo, upCount * 2);
+                upW = Arrays.copyOf(upW, upCount * 2);
+            }
+            upFrom[upCount] = from;
+            upTo[upCount] = to;
+            upW[upCount++] = w;
+        }
+
+        private void addDown(int from, int to, long w){
+            if(downCount == downFrom.length){
+                downFrom = Arrays.copyOf(downFrom, downCount * 2);
+                downTo = Arrays.copyOf(downTo, downCount * 2);
+                downW = Arrays.copyOf(downW, downCount * 2);
+            }
+            downFrom[downCount] = from;
+            downTo[downCount] = to;
+            downW[downCount++] = w;
+        }
+    }
+}
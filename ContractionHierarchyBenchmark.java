@@ -0,0 +1,79 @@
+import java.util.*;
+
+/**
+ * Compares ContractionHierarchy queries against DSU.dijkstraShortestPath and the
+ * reusable DijkstraEngine on the same random road-like grid.
+ *
+ * Usage: java ContractionHierarchyBenchmark [side] [queries]
+ */
+public class ContractionHierarchyBenchmark {
+
+    public static void main(String[] args){
+
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int n = side * side;
+        Random random = new Random(42);
+
+        // grid streets plus a few short diagonal roads; edges stay local like a real road network
+        ArrayList<DSU.Edge> edges = new ArrayList<DSU.Edge>();
+        for(int i=0; i<side; i++){
+            for(int j=0; j<side; j++){
+                int v = i*side + j;
+                if(j+1 < side) edges.add(new DSU.Edge(v, v+1, 10 + random.nextInt(90)));
+                if(i+1 < side) edges.add(new DSU.Edge(v, v+side, 10 + random.nextInt(90)));
+            }
+        }
+        for(int i=0; i<n/10; i++){
+            int r = random.nextInt(side - 3), c = random.nextInt(side - 3);
+            int dr = 1 + random.nextInt(3), dc = 1 + random.nextInt(3);
+            edges.add(new DSU.Edge(r*side + c, (r+dr)*side + c+dc, 40 * (dr + dc) + random.nextInt(40)));
+        }
+
+        WeightedCSRGraph graph = WeightedCSRGraph.fromEdgeList(n, edges, false);
+        DijkstraEngine engine = new DijkstraEngine(graph);
+
+        long start = System.nanoTime();
+        ContractionHierarchy ch = ContractionHierarchy.build(graph);
+        System.out.printf("nodes=%d edges=%d preprocessing=%.1f ms upward edges=%d%n",
+            n, graph.edgeCount(), (System.nanoTime() - start) / 1e6, ch.up.edgeCount() + ch.down.edgeCount());
+
+        int[] src = new int[queries], dst = new int[queries];
+        for(int i=0; i<queries; i++){
+            src[i] = random.nextInt(n);
+            dst[i] = random.nextInt(n);
+        }
+
+        // warm up before timing anything
+        for(int i=0; i<Math.min(queries, 100); i++){
+            ch.query(src[i], dst[i]);
+            engine.query(src[i], dst[i], engine.workspace());
+        }
+
+        long checksum = 0, settled = 0;
+        start = System.nanoTime();
+        for(int i=0; i<queries; i++){
+            checksum += ch.query(src[i], dst[i]);
+            settled += ch.lastSettledCount();
+        }
+        double chMicros = (System.nanoTime() - start) / 1e3 / queries;
+
+        long expected = 0;
+        start = System.nanoTime();
+        for(int i=0; i<queries; i++) expected += engine.query(src[i], dst[i], engine.workspace()).distance(dst[i]);
+        double engineMicros = (System.nanoTime() - start) / 1e3 / queries;
+
+        int dsuQueries = Math.min(queries, 20);
+        start = System.nanoTime();
+        for(int i=0; i<dsuQueries; i++){
+            if(DSU.dijkstraShortestPath(n, src[i], edges)[dst[i]] != ch.query(src[i], dst[i]))
+                throw new AssertionError("CH and DSU disagree for query " + i);
+        }
+        double dsuMicros = (System.nanoTime() - start) / 1e3 / dsuQueries;
+
+        if(checksum != expected) throw new AssertionError("CH and Dijkstra disagree");
+        System.out.printf("CH query:               %10.1f us  (%d settled on average)%n", chMicros, settled / queries);
+        System.out.printf("DijkstraEngine to target: %8.1f us%n", engineMicros);
+        System.out.printf("DSU.dijkstraShortestPath: %8.1f us%n", dsuMicros);
+    }
+}
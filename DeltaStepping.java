@@ -0,0 +1,220 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel single-source shortest paths by delta-stepping (Meyer, Sanders).
+ *
+ * Tentative distances are grouped into buckets of width delta. The smallest
+ * non-empty bucket is settled by repeatedly relaxing the light edges (w < delta)
+ * of its nodes, since those can put nodes back into the same bucket; afterwards
+ * the heavy edges of every node settled in that bucket are relaxed once.
+ *
+ * Each relaxation round is split into chunks on the fork-join pool and updates
+ * the shared long[] distances with an atomic min (CAS). Nodes whose distance
+ * dropped are collected per chunk and then dropped into a cyclic array of
+ * buckets; stale entries are skipped when a bucket is opened. A bitset marks the
+ * non-empty slots, so the next bucket is found a word at a time instead of
+ * stepping through the empty ones, which matters when delta is small against
+ * the largest weight.
+ *
+ * Weights must be non-negative. A small delta behaves like Dijkstra, a huge one
+ * like Bellman-Ford; the default is the average edge weight.
+ */
+public final class DeltaStepping {
+
+    static final long INF = DijkstraEngine.INF;
+    static final int CHUNK = 256;
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    final WeightedCSRGraph graph;
+    final int delta;
+    // edges of u reordered so light ones come first: [offsets[u], lightEnd[u]) are light
+    private final int[] targets, weights, lightEnd;
+    private final int bucketCount;
+
+    public DeltaStepping(WeightedCSRGraph graph){
+        this(graph, defaultDelta(graph));
+    }
+
+    public DeltaStepping(WeightedCSRGraph graph, int delta){
+        if(delta <= 0) throw new IllegalArgumentException("delta must be positive");
+        if(graph.hasNegativeWeights()) throw new IllegalArgumentException("delta-stepping needs non-negative weights");
+        this.graph = graph;
+        this.delta = delta;
+
+        int n = graph.nodes;
+        int m = graph.edgeCount();
+        targets = new int[m];
+        weights = new int[m];
+        lightEnd = new int[n];
+        int maxWeight = 0;
+        for(int u=0; u<n; u++){
+            int lo = graph.offsets[u], hi = graph.offsets[u+1] - 1;
+            for(int e=graph.offsets[u]; e<graph.offsets[u+1]; e++){
+                int w = graph.weights[e];
+                int p = w < delta ? lo++ : hi--;
+                targets[p] = graph.targets[e];
+                weights[p] = w;
+                maxWeight = Math.max(maxWeight, w);
+            }
+            lightEnd[u] = lo;
+        }
+        // a relaxation lands at most maxWeight/delta buckets ahead, so that many slots can be reused cyclically
+        bucketCount = maxWeight / delta + 2;
+    }
+
+    private static int defaultDelta(WeightedCSRGraph graph){
+        long sum = 0;
+        for(int w: graph.weights) sum += w;
+        return (int) Math.max(1, sum / Math.max(1, graph.weights.length));
+    }
+
+    /** Distance to every node, DijkstraEngine.INF when unreachable. */
+    public long[] distances(int src){
+
+        int n = graph.nodes;
+        long[] dist = new long[n];
+        Arrays.fill(dist, INF);
+        dist[src] = 0;
+
+        IntList[] buckets = new IntList[bucketCount]; // created on first use
+        long[] occupied = new long[(bucketCount + 63) >>> 6]; // bit i set while buckets[i] is non-empty
+        buckets[0] = new IntList();
+        buckets[0].add(src);
+        occupied[0] = 1L;
+        long pending = 1; // entries sitting in buckets, stale ones included
+
+        int[] frontierStamp = new int[n]; // last light round a node was queued in
+        int[] settledStamp = new int[n];  // last bucket a node was settled in (+1)
+        Arrays.fill(frontierStamp, -1);
+        int round = 0;
+
+        for(long b=0; pending > 0; b++){
+            // live entries are at most bucketCount - 1 buckets ahead, so the next
+            // occupied slot after b's is the smallest non-empty bucket
+            int current = (int) (b % bucketCount);
+            int slot = nextOccupied(occupied, current);
+            b += slot >= current ? slot - current : slot + bucketCount - current;
+            IntList bucket = buckets[slot];
+            pending -= bucket.size;
+
+            IntList settled = new IntList();
+            int[] frontier = live(bucket, dist, b, frontierStamp, round++);
+            bucket.size = 0;
+
+            while(frontier.length > 0){
+                for(int u: frontier){
+                    if(settledStamp[u] != b+1){
+                        settledStamp[u] = (int) (b+1);
+                        settled.add(u);
+                    }
+                }
+
+                int[][] updated = relax(frontier, frontier.length, dist, true);
+                pending += distribute(updated, buckets, occupied, dist);
+
+                // light edges can only refill the current bucket
+                frontier = live(bucket, dist, b, frontierStamp, round++);
+                pending -= bucket.size;
+                bucket.size = 0;
+            }
+            occupied[slot >>> 6] &= ~(1L << slot);
+
+            int[][] updated = relax(settled.data, settled.size, dist, false);
+            pending += distribute(updated, buckets, occupied, dist);
+        }
+        return dist;
+    }
+
+    /** Same output as DSU.dijkstraShortestPath: int distances, Integer.MAX_VALUE/2 when unreachable. */
+    public int[] shortestPaths(int src){
+        long[] d = distances(src);
+        int[] res = new int[d.length];
+        for(int i=0; i<res.length; i++) res[i] = d[i] == INF ? Integer.MAX_VALUE/2 : (int) d[i];
+        return res;
+    }
+
+    // nodes of bucket b whose distance still falls in b, each once
+    private int[] live(IntList bucket, long[] dist, long b, int[] stamp, int round){
+        int[] res = new int[bucket.size];
+        int cnt = 0;
+        for(int i=0; i<bucket.size; i++){
+            int v = bucket.data[i];
+            if(dist[v] / delta == b && stamp[v] != round){
+                stamp[v] = round;
+                res[cnt++] = v;
+            }
+        }
+        return Arrays.copyOf(res, cnt);
+    }
+
+    // relaxes the light (or heavy) edges of nodes[0, count) in parallel chunks;
+    // returns, per chunk, the nodes whose distance went down
+    private int[][] relax(int[] nodes, int count, long[] dist, boolean light){
+
+        int chunks = (count + CHUNK - 1) / CHUNK;
+        return IntStream.range(0, chunks).parallel().mapToObj(c -> {
+            IntList out = new IntList();
+            for(int i=c*CHUNK, end=Math.min(count, (c+1)*CHUNK); i<end; i++){
+                int u = nodes[i];
+                long du = (long) LONGS.getVolatile(dist, u);
+                int from = light ? graph.offsets[u] : lightEnd[u];
+                int to = light ? lightEnd[u] : graph.offsets[u+1];
+                for(int e=from; e<to; e++){
+                    int v = targets[e];
+                    if(atomicMin(dist, v, du + weights[e])) out.add(v);
+                }
+            }
+            return Arrays.copyOf(out.data, out.size);
+        }).toArray(int[][]::new);
+    }
+
+    private int distribute(int[][] updated, IntList[] buckets, long[] occupied, long[] dist){
+        int added = 0;
+        for(int[] chunk: updated){
+            for(int v: chunk){
+                int slot = (int) ((dist[v] / delta) % bucketCount);
+                if(buckets[slot] == null) buckets[slot] = new IntList();
+                buckets[slot].add(v);
+                occupied[slot >>> 6] |= 1L << slot;
+                added++;
+            }
+        }
+        return added;
+    }
+
+    // first set bit at or after from, wrapping around; some bit must be set
+    private int nextOccupied(long[] occupied, int from){
+        int w = from >>> 6;
+        long word = occupied[w] & (-1L << from);
+        for(int i=0; i<=occupied.length; i++){
+            if(word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            w = w + 1 == occupied.length ? 0 : w + 1;
+            word = occupied[w];
+        }
+        throw new IllegalStateException("no occupied bucket");
+    }
+
+    private static boolean atomicMin(long[] arr, int i, long value){
+        long cur = (long) LONGS.getVolatile(arr, i);
+        while(value < cur){
+            long witness = (long) LONGS.compareAndExchange(arr, i, cur, value);
+            if(witness == cur) return true;
+            cur = witness;
+        }
+        return false;
+    }
+
+    private static final class IntList {
+        int[] data = new int[8];
+        int size;
+
+        void add(int x){
+            if(size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = x;
+        }
+    }
+}
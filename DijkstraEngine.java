@@ -0,0 +1,160 @@
+import java.util.*;
+
+/**
+ * Dijkstra over a WeightedCSRGraph that is built once and queried many times.
+ *
+ * All per-query state (distances, parents, heap) lives in a Workspace. Each
+ * thread gets its own workspace, and a workspace remembers which nodes the last
+ * query touched so the next query resets only those. After warm-up a query
+ * allocates nothing.
+ *
+ * Weights must be non-negative.
+ */
+public final class DijkstraEngine {
+
+    static final long INF = Long.MAX_VALUE / 4;
+
+    final WeightedCSRGraph graph;
+    final long[] longWeights; // replaces graph.weights when set, see the constructor below
+    private final ThreadLocal<Workspace> workspaces;
+
+    public DijkstraEngine(WeightedCSRGraph graph){
+        this(graph, null);
+        if(graph.hasNegativeWeights()) throw new IllegalArgumentException("Dijkstra needs non-negative weights");
+    }
+
+    // Uses weights[e] for edge e of graph instead of graph.weights; for weights that
+    // do not fit in an int, e.g. Johnson's reweighted edges.
+    DijkstraEngine(WeightedCSRGraph graph, long[] weights){
+        if(weights != null){
+            for(long w: weights) if(w < 0) throw new IllegalArgumentException("Dijkstra needs non-negative weights");
+        }
+        this.graph = graph;
+        this.longWeights = weights;
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(graph.nodes));
+    }
+
+    public static final class Workspace {
+        final long[] dist;
+        final int[] parent;
+        final IndexedDaryHeap heap;
+        final int[] touched;
+        int touchedCount;
+        int settled; // nodes polled by the last query
+
+        Workspace(int n){
+            dist = new long[n];
+            parent = new int[n];
+            heap = new IndexedDaryHeap(n);
+            touched = new int[n];
+            Arrays.fill(dist, INF);
+            Arrays.fill(parent, -1);
+        }
+
+        void reset(){
+            for(int i=0; i<touchedCount; i++){
+                int v = touched[i];
+                dist[v] = INF;
+                parent[v] = -1;
+            }
+            touchedCount = 0;
+            settled = 0;
+            heap.clear();
+        }
+
+        void relax(int v, long d, int from){
+            relax(v, d, from, d);
+        }
+
+        // heap priority can differ from the distance (A* uses distance + heuristic);
+        // the first time a node gets a distance it is recorded for the next reset
+        void relax(int v, long d, int from, long priority){
+            if(dist[v] == INF) touched[touchedCount++] = v;
+            dist[v] = d;
+            parent[v] = from;
+            heap.push(v, priority);
+        }
+
+        /** Distance from the last query's source, or DijkstraEngine.INF when unreachable. */
+        public long distance(int v){
+            return dist[v];
+        }
+
+        public int parent(int v){
+            return parent[v];
+        }
+
+        public int settledCount(){
+            return settled;
+        }
+
+        /** Nodes from the last query's source to target, empty if unreachable. */
+        public int[] path(int target){
+            if(dist[target] == INF) return new int[0];
+            int len = 0;
+            for(int v=target; v!=-1; v=parent[v]) len++;
+            int[] path = new int[len];
+            for(int v=target; v!=-1; v=parent[v]) path[--len] = v;
+            return path;
+        }
+    }
+
+    /** The calling thread's workspace. */
+    public Workspace workspace(){
+        return workspaces.get();
+    }
+
+    /**
+     * Full single-source run on the calling thread's workspace. The returned
+     * workspace is overwritten by that thread's next query.
+     */
+    public Workspace query(int src){
+        return query(src, -1, workspaces.get());
+    }
+
+    /** Runs until target is settled (target = -1 runs to completion). */
+    public Workspace query(int src, int target, Workspace ws){
+
+        ws.reset();
+        ws.relax(src, 0, -1);
+
+        int[] offsets = graph.offsets, targets = graph.targets, weights = graph.weights;
+        long[] dist = ws.dist;
+        IndexedDaryHeap heap = ws.heap;
+
+        while(!heap.isEmpty()){
+            int u = heap.poll();
+            ws.settled++;
+            if(u == target) break;
+
+            long du = dist[u];
+            if(longWeights != null){
+                for(int e=offsets[u]; e<offsets[u+1]; e++){
+                    int v = targets[e];
+                    long nd = du + longWeights[e];
+                    if(nd < dist[v]) ws.relax(v, nd, u);
+                }
+                continue;
+            }
+            for(int e=offsets[u]; e<offsets[u+1]; e++){
+                int v = targets[e];
+                long nd = du + weights[e];
+                if(nd < dist[v]) ws.relax(v, nd, u);
+            }
+        }
+        return ws;
+    }
+
+    /** Copy of the distance array, using long INF for unreachable nodes. */
+    public long[] distances(int src){
+        return Arrays.copyOf(query(src).dist, graph.nodes);
+    }
+
+    /** Same output as DSU.dijkstraShortestPath: int distances, Integer.MAX_VALUE/2 when unreachable. */
+    public int[] shortestPaths(int src){
+        long[] d = query(src).dist;
+        int[] res = new int[graph.nodes];
+        for(int i=0; i<res.length; i++) res[i] = d[i] == INF ? Integer.MAX_VALUE/2 : (int) d[i];
+        return res;
+    }
+}
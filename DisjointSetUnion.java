@@ -11,13 +11,16 @@ public class DSU{
         for(int i=0; i<n; i++) parent[i] = -1;
     }
 
-    // find with path compression
+    // iterative find with path halving: every node on the way is pointed at its
+    // grandparent, so no call stack is needed however deep the tree is
     public int find(int x){
 
-        if(parent[x] < 0) return x; // root
-        
-        parent[x] = find(parent[x]); // path compression
-        return parent[x];
+        while(parent[x] >= 0){
+            int p = parent[x];
+            if(parent[p] >= 0) parent[x] = parent[p]; // skip a level
+            x = parent[x];
+        }
+        return x; // root
     }
 
     public boolean union(int a, int b){
@@ -63,6 +66,9 @@ public class DSU{
 
     public static int countConnectedComponents(int n, int edges[][]){
 
+        if(edges.length >= ConnectedComponents.SEQUENTIAL_THRESHOLD)
+            return ConnectedComponents.of(n, edges).count;
+
         DSU dsu = new DSU(n);
         for(int i=0; i<edges.length; i++){
             dsu.union(edges[i][0], edges[i][1]);
@@ -107,6 +113,12 @@ public class DSU{
         return result;
     }
 
+    // Same result for edges given as primitive arrays; uses the parallel Filter-Kruskal
+    // in MinimumSpanningTree so no Edge objects are sorted.
+    public static KruskalResult getMST(int n, int[] u, int[] v, int[] w){
+        return MinimumSpanningTree.filterKruskal(n, u, v, w);
+    }
+
     public static int[] dijkstraShortestPath(int n, int src, ArrayList<Edge> edges){
 
         class Pair{
@@ -160,14 +172,19 @@ public class DSU{
         return dist;
     }
 
-    public class BellmondFordResult{
+    public static class BellmondFordResult{
         long[] dist;
         int[] parent;
         boolean hasNegativeCycle;
+        int[] negativeCycle; // vertices of one negative cycle in edge order, empty if none
         BellmondFordResult(long[] d, int[] p, boolean neg){
+            this(d, p, neg, new int[0]);
+        }
+        BellmondFordResult(long[] d, int[] p, boolean neg, int[] cycle){
             dist = d; 
             parent = p; 
             hasNegativeCycle = neg;
+            negativeCycle = cycle;
         }
     }
 
@@ -180,6 +197,7 @@ public class DSU{
         Arrays.fill(dist, INF);
         dist[src] = 0;
         boolean hasNegativeCycle = false;
+        int[] cycle = new int[0];
 
         // Relax edges up to n-1 times
         for(int i=0; i<n-1; i++){
@@ -206,11 +224,13 @@ public class DSU{
             long currDist = dist[e.u] + e.w;
             if(currDist < dist[e.v]){
                 hasNegativeCycle = true;
+                parent[e.v] = e.u;
+                cycle = BellmondFordEngine.cycleThrough(parent, e.v, n);
                 break; // Found negative cycle, no need to continue
             }
         }
 
-        return new BellmondFordResult(dist, parent, hasNegativeCycle);
+        return new BellmondFordResult(dist, parent, hasNegativeCycle, cycle);
 
     }
 
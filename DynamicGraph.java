@@ -0,0 +1,348 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Graph that is updated in batches of edge insertions and deletions while
+ * readers work on consistent snapshots.
+ *
+ * A Snapshot is immutable: every node's neighbours are a sorted int[] without
+ * duplicates, and the rows are grouped into blocks of 2^BLOCK_SHIFT nodes. A
+ * batch copies only the blocks it touches (the block's array of row references)
+ * and builds new arrays only for the rows it changes; everything else is shared
+ * with the previous snapshot. The new snapshot is published with a CAS on the
+ * head. If another writer published first, the batch is applied again on top of
+ * that one, so writers never lock and see each other's batches in commit order.
+ * Batches touching at least PARALLEL_ROWS rows update their blocks in parallel.
+ *
+ * Readers take snapshot() and traverse it for as long as they like; a snapshot
+ * stays valid (and reachable) while it is referenced, later batches never change
+ * it.
+ *
+ * Within a batch, operations on the same edge take effect in the order they were
+ * added, so the last one wins. Inserting an existing edge or deleting a missing
+ * one changes nothing. An undirected graph stores and updates both directions.
+ */
+public final class DynamicGraph {
+
+    static final int BLOCK_SHIFT = 10;
+    static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+    static final int PARALLEL_ROWS = 1 << 12;
+
+    private static final int[] EMPTY = new int[0];
+
+    final int nodes;
+    final boolean directed;
+    private final AtomicReference<Snapshot> head;
+
+    public DynamicGraph(int nodes, boolean directed){
+        this.nodes = nodes;
+        this.directed = directed;
+        int[][][] blocks = new int[(nodes + BLOCK_MASK) >>> BLOCK_SHIFT][][];
+        for(int b=0; b<blocks.length; b++){
+            blocks[b] = new int[Math.min(1 << BLOCK_SHIFT, nodes - (b << BLOCK_SHIFT))][];
+            Arrays.fill(blocks[b], EMPTY);
+        }
+        head = new AtomicReference<>(new Snapshot(0, nodes, 0, directed, blocks));
+    }
+
+    /** Starts from g; for an undirected graph g must hold both directions of every edge. */
+    public DynamicGraph(CSRGraph g, boolean directed){
+        this(g.nodes, directed);
+        Snapshot s = head.get();
+        long edges = 0;
+        for(int u=0; u<g.nodes; u++){
+            int[] row = Arrays.copyOfRange(g.targets, g.offsets[u], g.offsets[u+1]);
+            Arrays.sort(row);
+            int k = 0;
+            for(int i=0; i<row.length; i++){
+                if(i == 0 || row[i] != row[i-1]) row[k++] = row[i];
+            }
+            s.blocks[u >>> BLOCK_SHIFT][u & BLOCK_MASK] = k == 0 ? EMPTY : Arrays.copyOf(row, k);
+            edges += k;
+        }
+        head.set(new Snapshot(0, nodes, edges, directed, s.blocks));
+    }
+
+    public int nodeCount(){
+        return nodes;
+    }
+
+    /** The latest published snapshot. */
+    public Snapshot snapshot(){
+        return head.get();
+    }
+
+    public Batch batch(){
+        return new Batch(nodes);
+    }
+
+    public Snapshot insertEdge(int u, int v){
+        return apply(batch().insert(u, v));
+    }
+
+    public Snapshot deleteEdge(int u, int v){
+        return apply(batch().delete(u, v));
+    }
+
+    /** Applies every operation of the batch atomically and returns the snapshot that contains it. */
+    public Snapshot apply(Batch batch){
+
+        Changes changes = resolve(batch);
+        int groups = changes.blockStart.length - 1;
+        long[] delta = new long[groups];
+        while(true){
+            Snapshot s = head.get();
+            int[][][] blocks = s.blocks.clone();
+
+            // every touched block is copied and updated independently
+            IntStream range = IntStream.range(0, groups);
+            if(changes.rows.length >= PARALLEL_ROWS) range = range.parallel();
+            range.forEach(i -> {
+                int first = changes.blockStart[i], end = changes.blockStart[i+1];
+                int b = changes.rows[first] >>> BLOCK_SHIFT;
+                int[][] block = s.blocks[b].clone();
+                long d = 0;
+                for(int r=first; r<end; r++){
+                    int u = changes.rows[r];
+                    int[] old = block[u & BLOCK_MASK];
+                    int[] row = merge(old, changes.ops, changes.start[r], changes.start[r+1]);
+                    d += row.length - old.length;
+                    block[u & BLOCK_MASK] = row;
+                }
+                blocks[b] = block;
+                delta[i] = d;
+            });
+
+            long edges = s.edges;
+            for(long d: delta) edges += d;
+            Snapshot next = new Snapshot(s.version + 1, nodes, edges, directed, blocks);
+            if(head.compareAndSet(s, next)) return next;
+        }
+    }
+
+    /** Edge insertions and deletions, applied together by DynamicGraph.apply. */
+    public static final class Batch {
+        private final int nodes;
+        private int[] from = new int[16], to = new int[16];
+        private boolean[] insert = new boolean[16];
+        private int size;
+
+        Batch(int nodes){
+            this.nodes = nodes;
+        }
+
+        public Batch insert(int u, int v){
+            return add(u, v, true);
+        }
+
+        public Batch delete(int u, int v){
+            return add(u, v, false);
+        }
+
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            size = 0;
+        }
+
+        private Batch add(int u, int v, boolean ins){
+            if(u < 0 || u >= nodes || v < 0 || v >= nodes) throw new IndexOutOfBoundsException("edge " + u + " -> " + v + " outside 0.." + (nodes - 1));
+            if(size == from.length){
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+                insert = Arrays.copyOf(insert, size * 2);
+            }
+            from[size] = u;
+            to[size] = v;
+            insert[size++] = ins;
+            return this;
+        }
+    }
+
+    /** An immutable version of the graph. */
+    public static final class Snapshot {
+        final long version;
+        final int nodes;
+        final long edges;
+        final boolean directed;
+        final int[][][] blocks; // blocks[u >>> BLOCK_SHIFT][u & BLOCK_MASK] = sorted neighbours of u
+
+        Snapshot(long version, int nodes, long edges, boolean directed, int[][][] blocks){
+            this.version = version;
+            this.nodes = nodes;
+            this.edges = edges;
+            this.directed = directed;
+            this.blocks = blocks;
+        }
+
+        /** Number of applied batches. */
+        public long version(){
+            return version;
+        }
+
+        public int nodeCount(){
+            return nodes;
+        }
+
+        /** Stored adjacency entries; an undirected edge counts in both directions. */
+        public long edgeCount(){
+            return edges;
+        }
+
+        public int degree(int u){
+            return row(u).length;
+        }
+
+        public boolean hasEdge(int u, int v){
+            return Arrays.binarySearch(row(u), v) >= 0;
+        }
+
+        /** Sorted neighbours of u. */
+        public int[] neighbours(int u){
+            return row(u).clone();
+        }
+
+        public void forEachNeighbour(int u, IntConsumer action){
+            for(int v: row(u)) action.accept(v);
+        }
+
+        /** BFS level of every node from start, -1 when unreachable. */
+        public int[] bfsLevels(int start){
+            int[] level = new int[nodes];
+            Arrays.fill(level, -1);
+            int[] queue = new int[nodes];
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            level[start] = 0;
+            while(head < tail){
+                int curr = queue[head++];
+                for(int nei: row(curr)){
+                    if(level[nei] < 0){
+                        level[nei] = level[curr] + 1;
+                        queue[tail++] = nei;
+                    }
+                }
+            }
+            return level;
+        }
+
+        /** Connected components, weakly connected ones for a directed graph. */
+        public ConnectedComponents.Result connectedComponents(){
+            CSRGraph g = toCSRGraph();
+            return directed ? ConnectedComponents.of(g, g.transpose()) : ConnectedComponents.of(g);
+        }
+
+        /** CSR copy of this snapshot for the static engines (ParallelBFS, SCCs, ...). */
+        public CSRGraph toCSRGraph(){
+            int[] offsets = new int[nodes + 1];
+            for(int u=0; u<nodes; u++) offsets[u+1] = offsets[u] + row(u).length;
+            int[] targets = new int[offsets[nodes]];
+            for(int u=0; u<nodes; u++){
+                int[] row = row(u);
+                System.arraycopy(row, 0, targets, offsets[u], row.length);
+            }
+            return new CSRGraph(nodes, offsets, targets);
+        }
+
+        int[] row(int u){
+            return blocks[u >>> BLOCK_SHIFT][u & BLOCK_MASK];
+        }
+    }
+
+    // The batch grouped by row: rows[r] is the r-th changed node in increasing
+    // order, its operations are ops[start[r]..start[r+1]), sorted by target and
+    // one per target, v for an insertion and ~v for a deletion.
+    // rows of block group i are rows[blockStart[i]..blockStart[i+1]).
+    private static final class Changes {
+        int[] rows, start, ops, blockStart;
+    }
+
+    // Independent of the snapshot, so a retried CAS reuses it.
+    private Changes resolve(Batch batch){
+
+        // one entry per stored direction, in batch order
+        int total = directed ? batch.size : 2 * batch.size;
+        int[] src = new int[total], dst = new int[total];
+        boolean[] ins = new boolean[total];
+        int k = 0;
+        for(int i=0; i<batch.size; i++){
+            src[k] = batch.from[i]; dst[k] = batch.to[i]; ins[k++] = batch.insert[i];
+            if(!directed){
+                src[k] = batch.to[i]; dst[k] = batch.from[i]; ins[k++] = batch.insert[i];
+            }
+        }
+
+        // by source, then batch order
+        long[] bySource = new long[total];
+        for(int i=0; i<total; i++) bySource[i] = ((long) src[i] << 32) | i;
+        Arrays.sort(bySource);
+
+        Changes c = new Changes();
+        c.rows = new int[total];
+        c.start = new int[total + 1];
+        c.ops = new int[total];
+        int rows = 0, out = 0;
+        long[] byTarget = new long[16];
+        for(int i=0; i<total; ){
+            int u = (int) (bySource[i] >>> 32);
+            int j = i;
+            while(j < total && (int) (bySource[j] >>> 32) == u) j++;
+
+            // by target, then batch order; the last operation per target wins
+            int len = j - i;
+            if(byTarget.length < len) byTarget = new long[Math.max(len, byTarget.length * 2)];
+            for(int x=0; x<len; x++){
+                int e = (int) bySource[i + x];
+                byTarget[x] = ((long) dst[e] << 32) | e;
+            }
+            Arrays.sort(byTarget, 0, len);
+            c.rows[rows] = u;
+            c.start[rows] = out;
+            for(int x=0; x<len; x++){
+                if(x + 1 < len && (byTarget[x+1] >>> 32) == (byTarget[x] >>> 32)) continue;
+                int e = (int) byTarget[x];
+                c.ops[out++] = ins[e] ? dst[e] : ~dst[e];
+            }
+            rows++;
+            i = j;
+        }
+        c.start[rows] = out;
+        c.rows = Arrays.copyOf(c.rows, rows);
+        c.start = Arrays.copyOf(c.start, rows + 1);
+
+        int groups = 0;
+        c.blockStart = new int[rows + 1];
+        for(int r=0; r<rows; r++){
+            if(r == 0 || (c.rows[r] >>> BLOCK_SHIFT) != (c.rows[r-1] >>> BLOCK_SHIFT)) c.blockStart[groups++] = r;
+        }
+        c.blockStart[groups] = rows;
+        c.blockStart = Arrays.copyOf(c.blockStart, groups + 1);
+        return c;
+    }
+
+    // old with ops[from..to) applied; both sorted by target
+    private static int[] merge(int[] old, int[] ops, int from, int to){
+
+        int[] row = new int[old.length + (to - from)];
+        int i = 0, j = from, k = 0;
+        while(i < old.length || j < to){
+            int v = j < to ? (ops[j] >= 0 ? ops[j] : ~ops[j]) : Integer.MAX_VALUE;
+            if(i < old.length && old[i] < v){
+                row[k++] = old[i++];
+            }else if(i < old.length && old[i] == v){
+                if(ops[j] >= 0) row[k++] = v;
+                i++;
+                j++;
+            }else{
+                if(ops[j] >= 0) row[k++] = v;
+                j++;
+            }
+        }
+        if(k == 0) return EMPTY;
+        return k == row.length ? row : Arrays.copyOf(row, k);
+    }
+}
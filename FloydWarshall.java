@@ -0,0 +1,164 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Blocked (tiled) Floyd-Warshall over a flat row-major long[] matrix.
+ *
+ * The matrix is cut into BLOCK x BLOCK tiles. For each diagonal tile kb:
+ *   1. the diagonal tile (kb, kb) is updated on its own
+ *   2. the tiles in row kb and column kb are updated, in parallel
+ *   3. every remaining tile (ib, jb) is updated from (ib, kb) and (kb, jb), in parallel
+ * Each tile update only touches three tiles, which stay in cache, instead of
+ * streaming the whole matrix once per k like the textbook triple loop.
+ *
+ * With predecessors enabled, pred[i*n + j] is the node before j on the shortest
+ * i -> j path, so paths can be rebuilt. Without them the inner loop is a
+ * branch-free min over contiguous longs, which the JIT can vectorize.
+ */
+public final class FloydWarshall {
+
+    static final long INF = Long.MAX_VALUE / 4;
+    static final int BLOCK = 64;
+
+    public static final class Result {
+        final int n;
+        final long[] dist;  // dist[i*n + j], INF when unreachable
+        final int[] pred;   // null when computed without predecessors
+        final boolean hasNegativeCycle;
+
+        Result(int n, long[] dist, int[] pred, boolean hasNegativeCycle){
+            this.n = n;
+            this.dist = dist;
+            this.pred = pred;
+            this.hasNegativeCycle = hasNegativeCycle;
+        }
+
+        public long distance(int i, int j){
+            return dist[i*n + j];
+        }
+
+        public boolean hasNegativeCycle(){
+            return hasNegativeCycle;
+        }
+
+        /** Nodes on the shortest i -> j path, empty when unreachable or not well defined. */
+        public int[] path(int i, int j){
+            if(pred == null) throw new IllegalStateException("computed without predecessors");
+            if(dist[i*n + j] == INF) return new int[0];
+
+            int[] rev = new int[n];
+            int len = 0;
+            for(int v=j; v!=i; v=pred[i*n + v]){
+                if(v == -1 || len == n) return new int[0]; // broken by a negative cycle
+                rev[len++] = v;
+            }
+            rev[len++] = i;
+
+            int[] path = new int[len];
+            for(int k=0; k<len; k++) path[k] = rev[len - 1 - k];
+            return path;
+        }
+    }
+
+    private FloydWarshall(){}
+
+    /** Same input as Graph.floydWarshall: adjacency matrix with Integer.MAX_VALUE for no edge. */
+    public static Result solve(int[][] graph, boolean withPaths){
+
+        int n = graph.length;
+        long[] dist = new long[n*n];
+        for(int i=0; i<n; i++){
+            for(int j=0; j<n; j++){
+                dist[i*n + j] = graph[i][j] == Integer.MAX_VALUE ? INF : graph[i][j];
+            }
+        }
+        return solve(n, dist, withPaths);
+    }
+
+    /** Directed edges from parallel arrays; parallel edges keep the lightest one. */
+    public static Result solve(int n, int[] from, int[] to, int[] w, boolean withPaths){
+
+        long[] dist = new long[n*n];
+        Arrays.fill(dist, INF);
+        for(int i=0; i<n; i++) dist[i*n + i] = 0;
+        for(int e=0; e<from.length; e++){
+            int idx = from[e]*n + to[e];
+            dist[idx] = Math.min(dist[idx], w[e]);
+        }
+        return solve(n, dist, withPaths);
+    }
+
+    /** Runs in place on dist (row-major n*n, INF for no edge). */
+    public static Result solve(int n, long[] dist, boolean withPaths){
+
+        int[] pred = null;
+        if(withPaths){
+            pred = new int[n*n];
+            for(int i=0; i<n; i++){
+                for(int j=0; j<n; j++) pred[i*n + j] = dist[i*n + j] == INF ? -1 : i;
+            }
+        }
+
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        final int[] p = pred;
+        for(int kb=0; kb<blocks; kb++){
+            final int k = kb;
+
+            updateTile(dist, p, n, k, k, k);
+
+            IntStream.range(0, 2 * blocks).parallel().forEach(t -> {
+                int other = t >> 1;
+                if(other == k) return;
+                if((t & 1) == 0) updateTile(dist, p, n, k, other, k);
+                else updateTile(dist, p, n, other, k, k);
+            });
+
+            IntStream.range(0, blocks * blocks).parallel().forEach(t -> {
+                int ib = t / blocks, jb = t % blocks;
+                if(ib == k || jb == k) return;
+                updateTile(dist, p, n, ib, jb, k);
+            });
+        }
+
+        // anything pushed past INF/2 only came from adding to INF
+        boolean negative = false;
+        for(int i=0; i<n*n; i++){
+            if(dist[i] >= INF / 2) dist[i] = INF;
+        }
+        for(int i=0; i<n; i++){
+            if(dist[i*n + i] < 0) negative = true;
+        }
+        return new Result(n, dist, pred, negative);
+    }
+
+    // relax tile (ib, jb) through every k of tile kb
+    private static void updateTile(long[] dist, int[] pred, int n, int ib, int jb, int kb){
+
+        int iEnd = Math.min(n, (ib+1)*BLOCK);
+        int jFrom = jb*BLOCK, jEnd = Math.min(n, (jb+1)*BLOCK);
+        int kEnd = Math.min(n, (kb+1)*BLOCK);
+
+        for(int k=kb*BLOCK; k<kEnd; k++){
+            int kRow = k*n;
+            for(int i=ib*BLOCK; i<iEnd; i++){
+                int iRow = i*n;
+                long dik = dist[iRow + k];
+                if(dik >= INF / 2) continue;
+
+                if(pred == null){
+                    for(int j=jFrom; j<jEnd; j++){
+                        dist[iRow + j] = Math.min(dist[iRow + j], dik + dist[kRow + j]);
+                    }
+                }else{
+                    for(int j=jFrom; j<jEnd; j++){
+                        long dkj = dist[kRow + j];
+                        if(dkj < INF / 2 && dik + dkj < dist[iRow + j]){
+                            dist[iRow + j] = dik + dkj;
+                            pred[iRow + j] = pred[kRow + j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
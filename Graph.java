@@ -1,9 +1,15 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 public class Graph{
 
     int nodes;
     ArrayList<ArrayList<Integer>> adjList;
+    CSRGraph csr; // set by freeze(); adjList is released at that point
+    CSRGraph csrReverse; // transpose of csr, built on demand
+    boolean undirected = true; // every edge so far was added in both directions
+    ParallelBFS parallelBfs; // built on first bfsLevels call
 
     Graph(int numberOfNodes){
         this.nodes = numberOfNodes;
@@ -12,17 +18,84 @@ public class Graph{
             adjList.add(new ArrayList<Integer>());
     }
 
+    // already frozen, e.g. from a graph file
+    private Graph(CSRGraph csr, boolean undirected){
+        this.nodes = csr.nodes;
+        this.csr = csr;
+        this.undirected = undirected;
+    }
+
+    // Loads a graph file written by MappedCSRGraph into a frozen Graph. The arrays are
+    // copied onto the heap (the mapping is closed before returning), so this needs
+    // memory for the whole graph; for graphs larger than the heap use
+    // MappedCSRGraph.open directly, which keeps the file mapped and pages it in on demand.
+    public static Graph load(Path file) throws IOException {
+        try(MappedCSRGraph mapped = MappedCSRGraph.open(file)){
+            return new Graph(mapped.toCSRGraph(), !mapped.isDirected());
+        }
+    }
+
+    // Frozen graph over the edges from[i] -> to[i], built in bulk by CSRBuilder
+    // instead of one addEdge call per edge.
+    public static Graph fromEdges(int numberOfNodes, int[] from, int[] to, boolean isDirected){
+        CSRBuilder builder = new CSRBuilder(numberOfNodes).addEdges(from, to);
+        if(!isDirected) builder.undirected();
+        return new Graph(builder.build(), !isDirected);
+    }
+
+    // Frozen copy with node u renamed to perm[u], e.g. a GraphReordering permutation.
+    // Results on the copy map back through GraphReordering.toOriginal / originalIds.
+    public Graph renumbered(int[] perm){
+        return new Graph(GraphReordering.apply(freeze(), perm), undirected);
+    }
+
+    // Sorted, gap and reference compressed copy of the adjacency; see CompressedGraph.
+    // Freezes the graph on first use.
+    public CompressedGraph compress(){
+        return CompressedGraph.of(freeze());
+    }
+
+    // Updatable copy that takes batched edge insertions and deletions while readers
+    // keep consistent snapshots; see DynamicGraph. It is undirected only if every edge
+    // here was added undirected, since only then are both directions stored. Freezes
+    // the graph on first use.
+    public DynamicGraph dynamic(){
+        return new DynamicGraph(freeze(), !undirected);
+    }
+
     public void addEdge(int u, int v, boolean isDirected){
+        if(csr != null) throw new IllegalStateException("graph is frozen, edges can no longer be added");
         this.adjList.get(u).add(v);
         if(!isDirected){
             this.adjList.get(v).add(u);
+        }else{
+            undirected = false;
+        }
+    }
+
+    // Converts the adjacency lists into an immutable CSR layout. Call once loading
+    // via addEdge is done; the traversals below then run over the int arrays.
+    public CSRGraph freeze(){
+        if(csr == null){
+            csr = CSRGraph.fromAdjList(adjList);
+            adjList = null;
         }
+        return csr;
     }
 
     public void dfs(int node, boolean[] visited){
         visited[node] = true;
         System.out.println("visiting - "+node);
 
+        if(csr != null){
+            for(int e=csr.offsets[node]; e<csr.offsets[node+1]; e++){
+                int neighbour = csr.targets[e];
+                if(!visited[neighbour])
+                    dfs(neighbour, visited);
+            }
+            return;
+        }
+
         for(int neighbour: adjList.get(node)){
             if(!visited[neighbour])
                 dfs(neighbour, visited);
@@ -31,28 +104,49 @@ public class Graph{
 
     public void dfsIterative(int start, boolean[] visited){
 
-        Stack<Integer> stack = new Stack<Integer>();
-        stack.push(start);
+        if(csr != null){
+            csr.dfsIterative(start, visited);
+            return;
+        }
+        visitComponent(start, visited, new int[nodes], new int[nodes], true);
+    }
 
+    // same order as the recursive dfs and CSRGraph.visitComponent: cursor[top] is the
+    // next neighbour to look at for the node on top of the stack. Both have room for
+    // every node and can be reused across calls.
+    private void visitComponent(int start, boolean[] visited, int[] stack, int[] cursor, boolean print){
 
-        while(!stack.isEmpty()){
-            int curr = stack.pop();
-            System.out.println("currently visiting - ", curr);
-            
-            if(!visited[curr]){
-                visited[curr] = true;
+        int top = 0;
+        stack[0] = start;
+        cursor[0] = 0;
+        visited[start] = true;
+        if(print) System.out.println("currently visiting - "+start);
 
-                for(int neighbour: adjList[curr]{
-                    if(!visited[neighbour]){
-                        stack.push(neighbour);
-                    }
-                })
+        while(top >= 0){
+            ArrayList<Integer> neighbours = adjList.get(stack[top]);
+            if(cursor[top] == neighbours.size()){
+                top--;
+                continue;
+            }
+
+            int nei = neighbours.get(cursor[top]++);
+            if(!visited[nei]){
+                visited[nei] = true;
+                if(print) System.out.println("currently visiting - "+nei);
+                top++;
+                stack[top] = nei;
+                cursor[top] = 0;
             }
         }
     }
 
     public void bfs(int start, boolean[] visited){
 
+        if(csr != null){
+            csr.bfs(start, visited);
+            return;
+        }
+
         Queue<Integer> queue = new LinkedList<Integer>();
         queue.add(start);
         visited[start] = true;
@@ -72,6 +166,11 @@ public class Graph{
 
     public void bfsPrintLevels(int start, boolean[] visited){
 
+        if(csr != null){
+            csr.bfsPrintLevels(start, visited);
+            return;
+        }
+
         Queue<Integer> queue = new LinkedList<Integer>();
         int level = 0;
         queue.add(start);
@@ -99,13 +198,42 @@ public class Graph{
         
     }
 
-    public static int countConnectedComponents(){
+    // Level of every node from start (-1 when unreachable), computed with the parallel
+    // direction-optimizing BFS. Freezes the graph on first use.
+    public int[] bfsLevels(int start){
+        if(parallelBfs == null) parallelBfs = undirected ? ParallelBFS.undirected(freeze()) : new ParallelBFS(freeze(), reverse());
+        return parallelBfs.levels(start);
+    }
+
+    // Component label of every node with edges taken as undirected, computed in
+    // parallel for large graphs. Freezes the graph on first use.
+    public ConnectedComponents.Result connectedComponents(){
+        return undirected ? ConnectedComponents.of(freeze()) : ConnectedComponents.of(freeze(), reverse());
+    }
+
+    // Transpose of the frozen graph; a graph whose edges were all added undirected
+    // is its own transpose, so its CSR is returned as is.
+    CSRGraph reverse(){
+        if(undirected) return freeze();
+        if(csrReverse == null) csrReverse = freeze().transpose();
+        return csrReverse;
+    }
+
+    // Number of DFS trees when starting from every unvisited node in id order, which
+    // for an undirected graph is its number of components. A frozen undirected graph
+    // uses the parallel ConnectedComponents; a directed one keeps the DFS count, which
+    // is not the same as its weakly connected components.
+    public int countConnectedComponents(){
 
+        if(csr != null) return undirected ? ConnectedComponents.of(csr).count() : csr.countConnectedComponents();
+
+        // silent and iterative, like CSRGraph.countConnectedComponents
         int count=0;
         boolean visited[] = new boolean[nodes];
+        int[] stack = new int[nodes], cursor = new int[nodes];
         for(int i=0; i<nodes; i++){
             if(!visited[i]){
-                dfs(i, visited);
+                visitComponent(i, visited, stack, cursor, false);
                 count++;
             }
         }
@@ -115,20 +243,26 @@ public class Graph{
 
     public boolean bipartiteCheck(){
 
+        if(csr != null) return csr.bipartiteCheck();
+
+        // every component gets coloured, as in CSRGraph.bipartiteCheck
         Queue<Integer> queue = new LinkedList<Integer>();
-        queue.add(0);
         int color[] = new int[nodes]; // 0 = uncolored, 1 = red, -1 = blue
-        color[0] = 1; //lets start with red
-        while(!queue.isEmpty()){
+        for(int s=0; s<nodes; s++){
+            if(color[s] != 0) continue;
+            queue.add(s);
+            color[s] = 1; //lets start with red
+            while(!queue.isEmpty()){
 
-            int curr = queue.poll();
-            for(int nei: adjList.get(curr)){
-                if(color[nei] == 0){
-                    color[nei] = -color[curr];
-                    queue.add(nei);
+                int curr = queue.poll();
+                for(int nei: adjList.get(curr)){
+                    if(color[nei] == 0){
+                        color[nei] = -color[curr];
+                        queue.add(nei);
+                    }
+                    else if(color[nei] == color[curr])
+                        return false;
                 }
-                else if(color[nei] == color[curr])
-                    return false;
             }
         }
 
@@ -140,6 +274,13 @@ public class Graph{
     public ArrayList<Integer> topologicalSort(){
         // kahn's algorithm
 
+        if(csr != null){
+            int[] order = csr.topologicalSort();
+            ArrayList<Integer> res = new ArrayList<Integer>(order.length);
+            for(int node: order) res.add(node);
+            return res;
+        }
+
         ArrayList<Integer> res = new ArrayList<Integer>();
         int[] indegree = new int[nodes];
         for(int i=0; i<nodes; i++){
@@ -173,41 +314,16 @@ public class Graph{
 
     }
 
-    public static void floydWarshall(int[][] graph){
-
-        int INF = Integer.MAX_VALUE;
-        int V = graph.length;
-        int[][] dist = new int[V][V];
-
-        for(int i=0; i<V; i++){
-            for(int j=0; j<V; j++){
-                dist[i][j] = graph[i][j];
-            }
-        }
-
-        for(int k=0; k<V; k++){
-            for(int i=0; i<V; i++){
-                for(int j=0; j<V; j++){
-                    if(dist[i][k] != INF && dist[k][j] != INF){
-                        int newDist = dist[i][k]+dist[k][j];
-                        if(newDist< dist[i][j]){
-                            dist[i][j] = newDist;
-                        }
-                    }
-                }
-            }
-        }
-
-        //detect negative cycle
-        for(int i=0; i<V; i++){
-            if(dist[i][i] < 0){
-                System.out.println("Negative cycle found");
-            }
-        }
-
-        return dist;
-
+    // Topological order grouped into wavefronts that can run concurrently, empty on
+    // a cycle. Computed in parallel; freezes the graph on first use.
+    public int[][] topologicalLevels(){
+        return ParallelTopologicalSort.levels(freeze());
+    }
 
+    // All-pairs shortest paths; returns the distance matrix (with predecessors for
+    // path reconstruction) and the negative cycle flag. See FloydWarshall.
+    public static FloydWarshall.Result floydWarshall(int[][] graph){
+        return FloydWarshall.solve(graph, true);
     }
 
 
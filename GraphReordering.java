@@ -0,0 +1,304 @@
+import java.util.*;
+
+/**
+ * Node relabelings that put nodes visited together next to each other in memory,
+ * so traversals over the renumbered CSR arrays touch fewer cache lines.
+ *
+ * Every method returns a permutation perm with perm[old] = new id. apply() builds
+ * the renumbered graph; results computed on it are translated back with
+ * toOriginal() (values indexed by node) and originalIds() (arrays of node ids).
+ *
+ *   - reverseCuthillMcKee: BFS from a pseudo-peripheral node of every component,
+ *     neighbours taken by increasing degree, order reversed. Keeps the neighbours
+ *     of a node within a narrow id band. Edges are taken as undirected.
+ *   - degreeSort: nodes by decreasing degree (ties keep their order), so the hubs
+ *     most traversals keep touching share a few cache lines.
+ *   - gorder: the greedy of Gorder (Wei, Yu, Lu and Lin): the next id goes to the
+ *     node with the most relations to the last WINDOW placed nodes, where a
+ *     relation is an edge between them or a common in-neighbour. Scores live in
+ *     a bucket queue with O(1) increments; in-neighbours with more than
+ *     HUB_DEGREE out-edges are skipped for the common neighbour term, which would
+ *     otherwise be quadratic in their degree.
+ */
+public final class GraphReordering {
+
+    static final int WINDOW = 5;
+    static final int HUB_DEGREE = 256;
+
+    private GraphReordering(){}
+
+    public static int[] reverseCuthillMcKee(CSRGraph g){
+
+        int n = g.nodes;
+        CSRGraph in = g.transpose();
+        int[] degree = new int[n];
+        for(int u=0; u<n; u++) degree[u] = g.degree(u) + in.degree(u);
+
+        CSRGraph[] sides = {g, in};
+        int[] order = new int[n];    // BFS order, doubles as the queue
+        int[] level = new int[n];    // scratch for the peripheral node search
+        int[] sweep = new int[n];
+        Arrays.fill(level, -1);
+        boolean[] placed = new boolean[n];
+        int[] buffer = new int[16];
+        int tail = 0;
+
+        // components are started from their lowest-degree node
+        int[] byDegree = inverse(decreasing(degree));
+        for(int i=n-1; i>=0; i--){
+            int s = byDegree[i];
+            if(placed[s]) continue;
+            int start = peripheral(sides, s, degree, level, sweep);
+
+            int head = tail;
+            order[tail++] = start;
+            placed[start] = true;
+            while(head < tail){
+                int u = order[head++];
+                int count = 0;
+                for(CSRGraph side: sides){
+                    for(int e=side.offsets[u]; e<side.offsets[u+1]; e++){
+                        int v = side.targets[e];
+                        if(placed[v]) continue;
+                        placed[v] = true;
+                        if(count == buffer.length) buffer = Arrays.copyOf(buffer, count * 2);
+                        buffer[count++] = v;
+                    }
+                }
+                sortByDegree(buffer, count, degree);
+                System.arraycopy(buffer, 0, order, tail, count);
+                tail += count;
+            }
+        }
+
+        int[] perm = new int[n];
+        for(int i=0; i<n; i++) perm[order[i]] = n - 1 - i;
+        return perm;
+    }
+
+    public static int[] degreeSort(CSRGraph g){
+        int[] degree = new int[g.nodes];
+        for(int u=0; u<g.nodes; u++) degree[u] = g.degree(u);
+        return decreasing(degree);
+    }
+
+    public static int[] gorder(CSRGraph g){
+
+        int n = g.nodes;
+        CSRGraph in = g.transpose();
+        BucketQueue queue = new BucketQueue(n);
+        int[] order = new int[n];
+
+        int first = 0;
+        for(int u=1; u<n; u++) if(in.degree(u) > in.degree(first)) first = u;
+
+        for(int i=0; i<n; i++){
+            int v = i == 0 ? first : queue.popMax();
+            queue.remove(v);
+            order[i] = v;
+            score(g, in, v, queue, 1);
+            if(i >= WINDOW) score(g, in, order[i - WINDOW], queue, -1);
+        }
+
+        int[] perm = new int[n];
+        for(int i=0; i<n; i++) perm[order[i]] = i;
+        return perm;
+    }
+
+    /** g with node u renamed to perm[u]; every row keeps its neighbour order. */
+    public static CSRGraph apply(CSRGraph g, int[] perm){
+
+        int n = g.nodes;
+        int[] inverse = inverse(perm);
+        int[] offsets = new int[n + 1];
+        for(int v=0; v<n; v++) offsets[v+1] = offsets[v] + g.degree(inverse[v]);
+
+        int[] targets = new int[offsets[n]];
+        for(int v=0; v<n; v++){
+            int u = inverse[v], k = offsets[v];
+            for(int e=g.offsets[u]; e<g.offsets[u+1]; e++) targets[k++] = perm[g.targets[e]];
+        }
+        return new CSRGraph(n, offsets, targets);
+    }
+
+    public static WeightedCSRGraph apply(WeightedCSRGraph g, int[] perm){
+
+        int n = g.nodes;
+        int[] inverse = inverse(perm);
+        int[] offsets = new int[n + 1];
+        for(int v=0; v<n; v++) offsets[v+1] = offsets[v] + g.degree(inverse[v]);
+
+        int[] targets = new int[offsets[n]];
+        int[] weights = new int[offsets[n]];
+        for(int v=0; v<n; v++){
+            int u = inverse[v], k = offsets[v];
+            for(int e=g.offsets[u]; e<g.offsets[u+1]; e++){
+                targets[k] = perm[g.targets[e]];
+                weights[k++] = g.weights[e];
+            }
+        }
+        return new WeightedCSRGraph(n, offsets, targets, weights);
+    }
+
+    /** inverse[perm[u]] = u */
+    public static int[] inverse(int[] perm){
+        int[] inverse = new int[perm.length];
+        for(int u=0; u<perm.length; u++) inverse[perm[u]] = u;
+        return inverse;
+    }
+
+    /** Per-node values computed on the renumbered graph, indexed by original id. */
+    public static int[] toOriginal(int[] byNewId, int[] perm){
+        int[] res = new int[perm.length];
+        for(int u=0; u<perm.length; u++) res[u] = byNewId[perm[u]];
+        return res;
+    }
+
+    public static long[] toOriginal(long[] byNewId, int[] perm){
+        long[] res = new long[perm.length];
+        for(int u=0; u<perm.length; u++) res[u] = byNewId[perm[u]];
+        return res;
+    }
+
+    /** Node ids of the renumbered graph (a path, an order, parents) as original ids; -1 stays -1. */
+    public static int[] originalIds(int[] newIds, int[] perm){
+        int[] inverse = inverse(perm);
+        int[] res = new int[newIds.length];
+        for(int i=0; i<newIds.length; i++) res[i] = newIds[i] < 0 ? newIds[i] : inverse[newIds[i]];
+        return res;
+    }
+
+    // BFS sweeps from s, restarting from the lowest-degree node of the last level
+    // while that increases the depth. level[] is -1 outside a sweep.
+    private static int peripheral(CSRGraph[] sides, int s, int[] degree, int[] level, int[] queue){
+
+        int depth = -1;
+        while(true){
+            int head = 0, tail = 0;
+            queue[tail++] = s;
+            level[s] = 0;
+            while(head < tail){
+                int u = queue[head++];
+                for(CSRGraph side: sides){
+                    for(int e=side.offsets[u]; e<side.offsets[u+1]; e++){
+                        int v = side.targets[e];
+                        if(level[v] >= 0) continue;
+                        level[v] = level[u] + 1;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+
+            int last = level[queue[tail-1]];
+            int best = queue[tail-1];
+            for(int i=tail-1; i>=0 && level[queue[i]] == last; i--){
+                if(degree[queue[i]] < degree[best]) best = queue[i];
+            }
+            for(int i=0; i<tail; i++) level[queue[i]] = -1;
+            if(last <= depth) return s;
+            depth = last;
+            s = best;
+        }
+    }
+
+    // permutation by decreasing key, ties in id order: a stable counting sort
+    private static int[] decreasing(int[] key){
+        int n = key.length, max = 0;
+        for(int k: key) max = Math.max(max, k);
+        int[] start = new int[max + 2];
+        for(int u=0; u<n; u++) start[max - key[u] + 1]++;
+        for(int k=0; k<=max; k++) start[k+1] += start[k];
+        int[] perm = new int[n];
+        for(int u=0; u<n; u++) perm[u] = start[max - key[u]]++;
+        return perm;
+    }
+
+    // insertion sort for short lists, Arrays.sort on packed (degree, node) otherwise
+    private static void sortByDegree(int[] a, int count, int[] degree){
+        if(count < 32){
+            for(int i=1; i<count; i++){
+                int x = a[i], j = i - 1;
+                while(j >= 0 && degree[a[j]] > degree[x]){
+                    a[j+1] = a[j];
+                    j--;
+                }
+                a[j+1] = x;
+            }
+            return;
+        }
+        long[] packed = new long[count];
+        for(int i=0; i<count; i++) packed[i] = ((long) degree[a[i]] << 32) | a[i];
+        Arrays.sort(packed);
+        for(int i=0; i<count; i++) a[i] = (int) packed[i];
+    }
+
+    // v entered (delta 1) or left (delta -1) the window
+    private static void score(CSRGraph out, CSRGraph in, int v, BucketQueue queue, int delta){
+        for(int e=out.offsets[v]; e<out.offsets[v+1]; e++) queue.add(out.targets[e], delta);
+        for(int e=in.offsets[v]; e<in.offsets[v+1]; e++){
+            int u = in.targets[e];
+            queue.add(u, delta);
+            if(out.degree(u) > HUB_DEGREE) continue;
+            for(int f=out.offsets[u]; f<out.offsets[u+1]; f++){
+                if(out.targets[f] != v) queue.add(out.targets[f], delta);
+            }
+        }
+    }
+
+    // Nodes keyed by a small non-negative score, one doubly linked list per key.
+    // add() moves a node between neighbouring lists; popMax() scans down from the
+    // largest key, which only ever grows by one per add.
+    private static final class BucketQueue {
+        final int[] key, prev, next;
+        final boolean[] removed;
+        int[] head = new int[16];
+        int max;
+
+        BucketQueue(int n){
+            key = new int[n];
+            prev = new int[n];
+            next = new int[n];
+            removed = new boolean[n];
+            Arrays.fill(head, -1);
+            for(int v=n-1; v>=0; v--) link(v);
+        }
+
+        void add(int v, int delta){
+            if(removed[v]) return;
+            unlink(v);
+            key[v] += delta;
+            if(key[v] >= head.length){
+                int old = head.length;
+                head = Arrays.copyOf(head, old * 2);
+                Arrays.fill(head, old, head.length, -1);
+            }
+            link(v);
+            max = Math.max(max, key[v]);
+        }
+
+        int popMax(){
+            while(head[max] < 0) max--;
+            return head[max];
+        }
+
+        void remove(int v){
+            if(removed[v]) return;
+            unlink(v);
+            removed[v] = true;
+        }
+
+        private void link(int v){
+            int k = key[v];
+            prev[v] = -1;
+            next[v] = head[k];
+            if(head[k] >= 0) prev[head[k]] = v;
+            head[k] = v;
+        }
+
+        private void unlink(int v){
+            if(prev[v] >= 0) next[prev[v]] = next[v];
+            else head[key[v]] = next[v];
+            if(next[v] >= 0) prev[next[v]] = prev[v];
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.*;
+
+/**
+ * Times BFS, connected components and Dijkstra on a graph with randomly shuffled
+ * ids, then again after each GraphReordering permutation. Results on the
+ * renumbered graphs are mapped back and must match the shuffled baseline.
+ *
+ * The graph is a grid with extra short-range edges, the kind of locality that
+ * road and mesh graphs have and that a random id assignment destroys.
+ *
+ * Cache misses are not visible from Java; run under perf to count them, e.g.
+ *   perf stat -e cache-misses,LLC-load-misses java GraphReorderingBenchmark
+ *
+ * Usage: java GraphReorderingBenchmark [nodes] [extraEdgesPerNode]
+ */
+public class GraphReorderingBenchmark {
+
+    static final int RUNS = 3;
+
+    public static void main(String[] args){
+
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        int extra = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        Random random = new Random(42);
+
+        int side = (int) Math.sqrt(n);
+        n = side * side;
+        int[] shuffle = new int[n];
+        for(int i=0; i<n; i++) shuffle[i] = i;
+        for(int i=n-1; i>0; i--){
+            int j = random.nextInt(i+1);
+            int t = shuffle[i]; shuffle[i] = shuffle[j]; shuffle[j] = t;
+        }
+
+        int m = 2*n + extra*n;
+        int[] from = new int[m], to = new int[m], w = new int[m];
+        int k = 0;
+        for(int r=0; r<side; r++){
+            for(int c=0; c<side; c++){
+                int u = r*side + c;
+                if(c+1 < side){ from[k] = u; to[k++] = u + 1; }
+                if(r+1 < side){ from[k] = u; to[k++] = u + side; }
+                for(int x=0; x<extra; x++){
+                    int rr = Math.min(side-1, Math.max(0, r + random.nextInt(17) - 8));
+                    int cc = Math.min(side-1, Math.max(0, c + random.nextInt(17) - 8));
+                    from[k] = u;
+                    to[k++] = rr*side + cc;
+                }
+            }
+        }
+        for(int i=0; i<k; i++){
+            from[i] = shuffle[from[i]];
+            to[i] = shuffle[to[i]];
+            w[i] = 1 + random.nextInt(100);
+        }
+        from = Arrays.copyOf(from, k);
+        to = Arrays.copyOf(to, k);
+        w = Arrays.copyOf(w, k);
+
+        CSRGraph g = new CSRBuilder(n).undirected().addEdges(from, to).build();
+        WeightedCSRGraph wg = WeightedCSRGraph.fromEdges(n, from, to, w, false);
+        int source = shuffle[(side/2)*side + side/2];
+        System.out.printf("nodes=%d edges=%d%n", n, g.edgeCount());
+
+        int[] identity = new int[n];
+        for(int i=0; i<n; i++) identity[i] = i;
+        Timing base = run("shuffled", g, wg, source, identity, 0, null);
+
+        long start = System.nanoTime();
+        int[] perm = GraphReordering.reverseCuthillMcKee(g);
+        run("rcm", g, wg, source, perm, System.nanoTime() - start, base);
+
+        start = System.nanoTime();
+        perm = GraphReordering.degreeSort(g);
+        run("degree", g, wg, source, perm, System.nanoTime() - start, base);
+
+        start = System.nanoTime();
+        perm = GraphReordering.gorder(g);
+        run("gorder", g, wg, source, perm, System.nanoTime() - start, base);
+    }
+
+    private static final class Timing {
+        int[] levels;
+        int components;
+        long[] dist;
+    }
+
+    private static Timing run(String name, CSRGraph g, WeightedCSRGraph wg, int source, int[] perm, long orderNanos, Timing base){
+
+        CSRGraph r = GraphReordering.apply(g, perm);
+        WeightedCSRGraph wr = GraphReordering.apply(wg, perm);
+        ParallelBFS bfs = ParallelBFS.undirected(r);
+        DijkstraEngine dijkstra = new DijkstraEngine(wr);
+        int s = perm[source];
+
+        Timing t = new Timing();
+        double bfsMs = Double.MAX_VALUE, ccMs = Double.MAX_VALUE, spMs = Double.MAX_VALUE;
+        for(int run=0; run<RUNS; run++){
+            long start = System.nanoTime();
+            t.levels = bfs.levels(s);
+            bfsMs = Math.min(bfsMs, (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            t.components = r.countConnectedComponents();
+            ccMs = Math.min(ccMs, (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            t.dist = dijkstra.distances(s);
+            spMs = Math.min(spMs, (System.nanoTime() - start) / 1e6);
+        }
+        t.levels = GraphReordering.toOriginal(t.levels, perm);
+        t.dist = GraphReordering.toOriginal(t.dist, perm);
+
+        if(base != null){
+            if(!Arrays.equals(t.levels, base.levels)) throw new AssertionError(name + ": bfs levels differ");
+            if(t.components != base.components) throw new AssertionError(name + ": component counts differ");
+            if(!Arrays.equals(t.dist, base.dist)) throw new AssertionError(name + ": distances differ");
+        }
+        System.out.printf("%-9s order %8.1f ms | bfs %7.1f ms | components %7.1f ms | dijkstra %7.1f ms%n",
+            name, orderNanos / 1e6, bfsMs, ccMs, spMs);
+        return t;
+    }
+}
@@ -0,0 +1,210 @@
+import java.util.*;
+
+/**
+ * Topological order of a directed Graph kept up to date while edges are added
+ * (Pearce and Kelly, "A Dynamic Topological Sort Algorithm for DAGs").
+ *
+ * ord[v] is v's position and node[p] the node at position p. Adding u -> v with
+ * ord[u] < ord[v] changes nothing. Otherwise only the "affected region" between
+ * ord[v] and ord[u] is searched:
+ *   - forward from v over nodes with ord <= ord[u]; reaching u means a cycle
+ *   - backward from u over nodes with ord >= ord[v]
+ * and the two sets are renumbered into the positions they already occupied,
+ * backward set first. Edges that would close a cycle are rejected and never
+ * reach the graph.
+ *
+ * All edges must be added through this class so it can track in-edges. The
+ * class keeps its own copy of the adjacency, so it keeps working after the graph
+ * is frozen (bfsLevels, connectedComponents, ... freeze it); edges added from
+ * then on are only recorded here, since a frozen graph takes no more edges.
+ */
+public class IncrementalTopologicalOrder {
+
+    private final Graph graph;
+    private final int[] ord;
+    private final int[] node;
+    private final int[][] out; // out[u][0..outSize[u]) are targets of edges out of u
+    private final int[] outSize;
+    private final int[][] in; // reverse adjacency, in[v][0..inSize[v]) are sources of edges into v
+    private final int[] inSize;
+
+    // scratch for the searches
+    private final boolean[] visited;
+    private int[] stack, cursor;
+    private int[] forwardSet, backwardSet;
+
+    /** Starts from the graph's current edges, which must form a DAG. */
+    public IncrementalTopologicalOrder(Graph graph){
+
+        int n = graph.nodes;
+        ArrayList<Integer> initial = graph.topologicalSort();
+        if(initial.size() != n) throw new IllegalArgumentException("graph has a cycle");
+
+        this.graph = graph;
+        ord = new int[n];
+        node = new int[n];
+        for(int p=0; p<n; p++){
+            node[p] = initial.get(p);
+            ord[node[p]] = p;
+        }
+
+        out = new int[n][];
+        outSize = new int[n];
+        in = new int[n][];
+        inSize = new int[n];
+        for(int v=0; v<n; v++){
+            out[v] = new int[2];
+            in[v] = new int[2];
+        }
+        for(int u=0; u<n; u++){
+            if(graph.csr != null){
+                for(int e=graph.csr.offsets[u]; e<graph.csr.offsets[u+1]; e++) addArc(u, graph.csr.targets[e]);
+            }else{
+                for(int v: graph.adjList.get(u)) addArc(u, v);
+            }
+        }
+
+        visited = new boolean[n];
+        stack = new int[16];
+        cursor = new int[16];
+        forwardSet = new int[16];
+        backwardSet = new int[16];
+    }
+
+    /**
+     * Adds the directed edge u -> v and repairs the order. Returns false, leaving
+     * the graph unchanged, if the edge would create a cycle.
+     */
+    public boolean addEdge(int u, int v){
+
+        if(u == v) return false;
+
+        int lb = ord[v], ub = ord[u];
+        if(lb < ub){
+            int forwardCount = search(v, ub, true, u);
+            if(forwardCount < 0) return false; // u is reachable from v
+
+            int backwardCount = search(u, lb, false, -1);
+            reorder(forwardCount, backwardCount);
+        }
+
+        if(graph.csr == null) graph.addEdge(u, v, true);
+        addArc(u, v);
+        return true;
+    }
+
+    public int position(int v){
+        return ord[v];
+    }
+
+    /** Nodes in the current topological order. */
+    public int[] order(){
+        return node.clone();
+    }
+
+    public ArrayList<Integer> orderAsList(){
+        ArrayList<Integer> res = new ArrayList<Integer>(node.length);
+        for(int v: node) res.add(v);
+        return res;
+    }
+
+    // Iterative DFS from start. Forward follows out-edges to nodes with ord <= bound,
+    // backward follows in-edges to nodes with ord >= bound. Found nodes go into
+    // forwardSet/backwardSet; returns their count, or -1 if target was reached.
+    private int search(int start, int bound, boolean forward, int target){
+
+        int count = 0;
+        int top = 0;
+        push(0, start);
+        visited[start] = true;
+        count = record(forward, count, start);
+
+        while(top >= 0){
+            int w = stack[top];
+            int degree = forward ? outSize[w] : inSize[w];
+            if(cursor[top] == degree){
+                top--;
+                continue;
+            }
+
+            int x = forward ? out[w][cursor[top]++] : in[w][cursor[top]++];
+            if(forward && x == target){
+                clearVisited(forwardSet, count);
+                return -1;
+            }
+            if(visited[x]) continue;
+            if(forward ? ord[x] > bound : ord[x] < bound) continue;
+
+            visited[x] = true;
+            count = record(forward, count, x);
+            top++;
+            push(top, x);
+        }
+        return count;
+    }
+
+    private void push(int top, int x){
+        if(top == stack.length){
+            stack = Arrays.copyOf(stack, top * 2);
+            cursor = Arrays.copyOf(cursor, top * 2);
+        }
+        stack[top] = x;
+        cursor[top] = 0;
+    }
+
+    private int record(boolean forward, int count, int x){
+        if(forward){
+            if(count == forwardSet.length) forwardSet = Arrays.copyOf(forwardSet, count * 2);
+            forwardSet[count] = x;
+        }else{
+            if(count == backwardSet.length) backwardSet = Arrays.copyOf(backwardSet, count * 2);
+            backwardSet[count] = x;
+        }
+        return count + 1;
+    }
+
+    // backward set keeps its relative order and goes first, then the forward set,
+    // into the sorted union of the positions both sets held before
+    private void reorder(int forwardCount, int backwardCount){
+
+        sortByOrd(forwardSet, forwardCount);
+        sortByOrd(backwardSet, backwardCount);
+
+        int total = forwardCount + backwardCount;
+        int[] positions = new int[total];
+        int[] nodes = new int[total];
+        for(int i=0; i<backwardCount; i++){
+            positions[i] = ord[backwardSet[i]];
+            nodes[i] = backwardSet[i];
+        }
+        for(int i=0; i<forwardCount; i++){
+            positions[backwardCount + i] = ord[forwardSet[i]];
+            nodes[backwardCount + i] = forwardSet[i];
+        }
+        Arrays.sort(positions);
+
+        for(int i=0; i<total; i++){
+            ord[nodes[i]] = positions[i];
+            node[positions[i]] = nodes[i];
+            visited[nodes[i]] = false;
+        }
+    }
+
+    private void sortByOrd(int[] set, int count){
+        long[] keyed = new long[count];
+        for(int i=0; i<count; i++) keyed[i] = ((long) ord[set[i]] << 32) | set[i];
+        Arrays.sort(keyed);
+        for(int i=0; i<count; i++) set[i] = (int) keyed[i];
+    }
+
+    private void clearVisited(int[] set, int count){
+        for(int i=0; i<count; i++) visited[set[i]] = false;
+    }
+
+    private void addArc(int u, int v){
+        if(outSize[u] == out[u].length) out[u] = Arrays.copyOf(out[u], outSize[u] * 2);
+        out[u][outSize[u]++] = v;
+        if(inSize[v] == in[v].length) in[v] = Arrays.copyOf(in[v], inSize[v] * 2);
+        in[v][inSize[v]++] = u;
+    }
+}
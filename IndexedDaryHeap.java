@@ -0,0 +1,128 @@
+/**
+ * Indexed min-heap over node ids 0..n-1 with long keys and decrease-key.
+ *
+ * Everything lives in three primitive arrays: heap[] holds node ids, pos[] is
+ * each node's slot in heap[] (-1 when absent) and key[] its priority. A d-ary
+ * layout (default 4) makes the tree shallower than a binary heap, which suits
+ * Dijkstra where decrease-key (sift up) is far more common than poll.
+ *
+ * clear() only touches nodes still in the heap, so a heap can be reused across
+ * queries without an O(n) reset.
+ */
+final class IndexedDaryHeap {
+
+    private final int d;
+    private final int[] heap;
+    private final int[] pos;
+    private final long[] key;
+    private int size;
+
+    IndexedDaryHeap(int capacity){
+        this(capacity, 4);
+    }
+
+    IndexedDaryHeap(int capacity, int arity){
+        if(arity < 2) throw new IllegalArgumentException("arity must be at least 2");
+        d = arity;
+        heap = new int[capacity];
+        pos = new int[capacity];
+        key = new long[capacity];
+        java.util.Arrays.fill(pos, -1);
+    }
+
+    boolean isEmpty(){
+        return size == 0;
+    }
+
+    int size(){
+        return size;
+    }
+
+    boolean contains(int v){
+        return pos[v] >= 0;
+    }
+
+    long keyOf(int v){
+        return key[v];
+    }
+
+    int peek(){
+        return heap[0];
+    }
+
+    long peekKey(){
+        return key[heap[0]];
+    }
+
+    /** Insert v, or lower its key if it is already present with a larger one. */
+    void push(int v, long k){
+        if(pos[v] < 0){
+            key[v] = k;
+            pos[v] = size;
+            heap[size++] = v;
+            siftUp(pos[v]);
+        }else if(k < key[v]){
+            key[v] = k;
+            siftUp(pos[v]);
+        }
+    }
+
+    int poll(){
+        int top = heap[0];
+        pos[top] = -1;
+        size--;
+        if(size > 0){
+            int last = heap[size];
+            heap[0] = last;
+            pos[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    void clear(){
+        for(int i=0; i<size; i++) pos[heap[i]] = -1;
+        size = 0;
+    }
+
+    private void siftUp(int i){
+        int v = heap[i];
+        long k = key[v];
+        while(i > 0){
+            int p = (i - 1) / d;
+            int pv = heap[p];
+            if(key[pv] <= k) break;
+            heap[i] = pv;
+            pos[pv] = i;
+            i = p;
+        }
+        heap[i] = v;
+        pos[v] = i;
+    }
+
+    private void siftDown(int i){
+        int v = heap[i];
+        long k = key[v];
+        while(true){
+            int first = i * d + 1;
+            if(first >= size) break;
+
+            int best = first;
+            long bestKey = key[heap[first]];
+            for(int c=first+1, end=Math.min(size, first + d); c<end; c++){
+                long ck = key[heap[c]];
+                if(ck < bestKey){
+                    best = c;
+                    bestKey = ck;
+                }
+            }
+            if(bestKey >= k) break;
+
+            heap[i] = heap[best];
+            pos[heap[i]] = i;
+            i = best;
+        }
+        heap[i] = v;
+        pos[v] = i;
+    }
+}
@@ -0,0 +1,150 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Johnson's all-pairs shortest paths for sparse graphs with negative edges.
+ *
+ * DSU.bellmondFord from a virtual node joined to every node by a 0 edge gives
+ * potentials h, and w'(u,v) = w + h[u] - h[v] is non-negative, so one Dijkstra
+ * per source on the reweighted graph gives every row: d(s,v) = d'(s,v) - h[s] + h[v].
+ *
+ * The per-source Dijkstras run in parallel on DijkstraEngine's per-thread
+ * workspaces. Rows are streamed instead of kept: forEachRow hands each one to a
+ * callback, writeTo fills a memory-mapped file band by band. Only
+ * allPairs() builds the full n x n matrix on the heap.
+ */
+public final class Johnson {
+
+    static final long INF = DijkstraEngine.INF;
+    static final long BAND_BYTES = 64L << 20; // size of one mapped region in writeTo
+
+    /** Receives one finished row; called concurrently from several threads. */
+    public interface RowConsumer {
+        // row is reused for the thread's next source, copy it if you keep it
+        void accept(int src, long[] row);
+    }
+
+    final int n;
+    final long[] h;
+    final boolean hasNegativeCycle;
+    private final DijkstraEngine engine;
+
+    /** Directed edges; parallel edges and negative weights are allowed. */
+    public Johnson(int n, ArrayList<DSU.Edge> edges){
+        this.n = n;
+
+        ArrayList<DSU.Edge> withSource = new ArrayList<DSU.Edge>(edges.size() + n);
+        withSource.addAll(edges);
+        for(int v=0; v<n; v++) withSource.add(new DSU.Edge(n, v, 0));
+
+        DSU.BellmondFordResult potentials = DSU.bellmondFord(n+1, withSource, n);
+        this.hasNegativeCycle = potentials.hasNegativeCycle;
+        this.h = Arrays.copyOf(potentials.dist, n);
+
+        if(hasNegativeCycle){
+            engine = null;
+            return;
+        }
+
+        int m = edges.size();
+        int[] from = new int[m], to = new int[m], w = new int[m];
+        for(int i=0; i<m; i++){
+            DSU.Edge e = edges.get(i);
+            from[i] = e.u;
+            to[i] = e.v;
+            w[i] = e.w;
+        }
+        WeightedCSRGraph g = WeightedCSRGraph.fromEdges(n, from, to, w, true);
+
+        // h[u] - h[v] can be far outside int range, so the reweighted edges stay long
+        long[] reduced = new long[g.targets.length];
+        for(int u=0; u<n; u++){
+            for(int e=g.offsets[u]; e<g.offsets[u+1]; e++) reduced[e] = g.weights[e] + h[u] - h[g.targets[e]];
+        }
+        engine = new DijkstraEngine(g, reduced);
+    }
+
+    public boolean hasNegativeCycle(){
+        return hasNegativeCycle;
+    }
+
+    /** Computes every source's row in parallel and passes it to consumer. */
+    public void forEachRow(RowConsumer consumer){
+        checkNoNegativeCycle();
+        ThreadLocal<long[]> rows = ThreadLocal.withInitial(() -> new long[n]);
+        IntStream.range(0, n).parallel().forEach(src -> {
+            long[] row = rows.get();
+            fillRow(src, row);
+            consumer.accept(src, row);
+        });
+    }
+
+    /** Single row, INF when unreachable. */
+    public long[] row(int src){
+        checkNoNegativeCycle();
+        long[] row = new long[n];
+        fillRow(src, row);
+        return row;
+    }
+
+    /** Full matrix on the heap; only sensible for small n. */
+    public long[][] allPairs(){
+        long[][] res = new long[n][];
+        forEachRow((src, row) -> res[src] = row.clone());
+        return res;
+    }
+
+    /**
+     * Writes the matrix row-major as n*n big-endian longs to file. The file is
+     * mapped in bands of whole rows, each band filled by one task.
+     */
+    public void writeTo(Path file) throws IOException {
+        checkNoNegativeCycle();
+        long rowBytes = 8L * n;
+        int rowsPerBand = (int) Math.max(1, Math.min(n, BAND_BYTES / Math.max(1, rowBytes)));
+        int bands = (n + rowsPerBand - 1) / rowsPerBand;
+
+        try(RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw");
+            FileChannel channel = raf.getChannel()){
+            raf.setLength(rowBytes * n);
+
+            ThreadLocal<long[]> rows = ThreadLocal.withInitial(() -> new long[n]);
+            IOException[] failure = new IOException[1];
+            IntStream.range(0, bands).parallel().forEach(b -> {
+                int first = b * rowsPerBand;
+                int last = Math.min(n, first + rowsPerBand);
+                try{
+                    MappedByteBuffer band = channel.map(FileChannel.MapMode.READ_WRITE, first * rowBytes, (last - first) * rowBytes);
+                    LongBuffer out = band.asLongBuffer();
+                    long[] row = rows.get();
+                    for(int src=first; src<last; src++){
+                        fillRow(src, row);
+                        out.put(row);
+                    }
+                    band.force();
+                }catch(IOException e){
+                    synchronized(failure){ failure[0] = e; }
+                }
+            });
+            if(failure[0] != null) throw failure[0];
+        }
+    }
+
+    private void fillRow(int src, long[] row){
+        DijkstraEngine.Workspace ws = engine.query(src);
+        for(int v=0; v<n; v++){
+            long d = ws.dist[v];
+            row[v] = d == INF ? INF : d - h[src] + h[v];
+        }
+    }
+
+    private void checkNoNegativeCycle(){
+        if(hasNegativeCycle) throw new IllegalStateException("graph has a negative cycle, shortest paths are undefined");
+    }
+}
@@ -15,6 +15,27 @@ class Kosaraju{
         adjList.get(u).add(v);
     }
 
+    // CSR copy of the graph for StronglyConnectedComponents; neighbour order is kept
+    CSRGraph toCSR(){
+        int m = 0;
+        for(List<Integer> nei: adjList) m += nei.size();
+
+        int[] from = new int[m], to = new int[m];
+        int e = 0;
+        for(int u=0; u<V; u++){
+            for(int v: adjList.get(u)){
+                from[e] = u;
+                to[e++] = v;
+            }
+        }
+        return CSRGraph.fromEdges(V, from, to, true);
+    }
+
+    // reachability queries over the condensation of getSCCs(), see ReachabilityIndex
+    ReachabilityIndex reachabilityIndex(){
+        return ReachabilityIndex.of(toCSR(), getSCCs());
+    }
+
     void dfs1(int v, boolean[] visited, List<List<Integer>> adjList, Stack<Integer> stack){
 
         visited[v] = true;
@@ -0,0 +1,417 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * CSR graph stored in a binary file and read through FileChannel.map, so opening
+ * it costs a header read and traversals page the arrays in on demand.
+ *
+ * File layout, little-endian:
+ *   header, HEADER_BYTES:
+ *     int magic "CSRG", int version, int flags (FLAG_WEIGHTED, FLAG_DIRECTED), int 0,
+ *     long nodes, long edges, long offsets position, long targets position,
+ *     long weights position (0 when unweighted), long 0
+ *   offsets: nodes+1 longs, so edge counts can go past 2^31
+ *   targets: edges ints
+ *   weights: edges ints, only with FLAG_WEIGHTED
+ *
+ * A single MappedByteBuffer is limited to 2GB, so every array is mapped as
+ * chunks of 2^CHUNK_SHIFT elements. Node ids are ints, edge ids longs.
+ *
+ * Files come from write() for graphs already in memory, or from
+ * convertEdgeList() / main() for text edge lists. The converter makes two
+ * streaming passes over the text and scatters straight into the mapped output,
+ * so memory use is one long per node.
+ */
+public final class MappedCSRGraph implements AutoCloseable {
+
+    static final int MAGIC = 0x47525343; // "CSRG" read as a little-endian int
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int FLAG_WEIGHTED = 1, FLAG_DIRECTED = 2;
+    static final int CHUNK_SHIFT = 27;
+    static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    final int nodes;
+    final long edges;
+    final boolean weighted, directed;
+
+    private final FileChannel channel;
+    private final LongBuffer[] offsets;
+    private final IntBuffer[] targets;
+    private final IntBuffer[] weights; // null when unweighted
+
+    private MappedCSRGraph(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while(header.hasRemaining()){
+            if(channel.read(header, header.position()) < 0) throw new IOException("file too short for a graph header");
+        }
+        header.flip();
+        if(header.getInt() != MAGIC) throw new IOException("not a CSR graph file");
+        int version = header.getInt();
+        if(version != VERSION) throw new IOException("unsupported graph file version " + version);
+        int flags = header.getInt();
+        header.getInt();
+        long n = header.getLong();
+        if(n > Integer.MAX_VALUE) throw new IOException("too many nodes: " + n);
+        nodes = (int) n;
+        edges = header.getLong();
+        long offsetsPos = header.getLong(), targetsPos = header.getLong(), weightsPos = header.getLong();
+        weighted = (flags & FLAG_WEIGHTED) != 0;
+        directed = (flags & FLAG_DIRECTED) != 0;
+
+        offsets = mapLongs(channel, FileChannel.MapMode.READ_ONLY, offsetsPos, nodes + 1L);
+        targets = mapInts(channel, FileChannel.MapMode.READ_ONLY, targetsPos, edges);
+        weights = weighted ? mapInts(channel, FileChannel.MapMode.READ_ONLY, weightsPos, edges) : null;
+    }
+
+    public static MappedCSRGraph open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try{
+            return new MappedCSRGraph(channel);
+        }catch(IOException | RuntimeException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int nodeCount(){
+        return nodes;
+    }
+
+    public long edgeCount(){
+        return edges;
+    }
+
+    public boolean isWeighted(){
+        return weighted;
+    }
+
+    public boolean isDirected(){
+        return directed;
+    }
+
+    /** First edge id of u; u's edges are offset(u) .. offset(u+1)-1. */
+    public long offset(int u){
+        return offsets[u >>> CHUNK_SHIFT].get(u & (int) CHUNK_MASK);
+    }
+
+    public int degree(int u){
+        return (int) (offset(u+1) - offset(u));
+    }
+
+    public int target(long e){
+        return targets[(int) (e >>> CHUNK_SHIFT)].get((int) (e & CHUNK_MASK));
+    }
+
+    public int weight(long e){
+        if(weights == null) throw new IllegalStateException("graph file has no weights");
+        return weights[(int) (e >>> CHUNK_SHIFT)].get((int) (e & CHUNK_MASK));
+    }
+
+    public void forEachNeighbour(int u, IntConsumer action){
+        for(long e=offset(u), end=offset(u+1); e<end; e++) action.accept(target(e));
+    }
+
+    /** Level of every node from start, -1 when unreachable, straight off the mapped file. */
+    public int[] bfsLevels(int start){
+        int[] level = new int[nodes];
+        Arrays.fill(level, -1);
+        int[] queue = new int[nodes];
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        level[start] = 0;
+        while(head < tail){
+            int u = queue[head++];
+            for(long e=offset(u), end=offset(u+1); e<end; e++){
+                int v = target(e);
+                if(level[v] != -1) continue;
+                level[v] = level[u] + 1;
+                queue[tail++] = v;
+            }
+        }
+        return level;
+    }
+
+    /** Heap copy for the in-memory engines; needs fewer than 2^31 edges. */
+    public CSRGraph toCSRGraph(){
+        return new CSRGraph(nodes, heapOffsets(), heapInts(targets));
+    }
+
+    public WeightedCSRGraph toWeightedCSRGraph(){
+        if(weights == null) throw new IllegalStateException("graph file has no weights");
+        return new WeightedCSRGraph(nodes, heapOffsets(), heapInts(targets), heapInts(weights));
+    }
+
+    private int[] heapOffsets(){
+        if(edges > Integer.MAX_VALUE - 8) throw new IllegalStateException("too many edges for an in-memory CSR: " + edges);
+        int[] res = new int[nodes + 1];
+        for(int u=0; u<=nodes; u++) res[u] = (int) offset(u);
+        return res;
+    }
+
+    private int[] heapInts(IntBuffer[] chunks){
+        int[] res = new int[(int) edges];
+        int pos = 0;
+        for(IntBuffer chunk: chunks){
+            int len = chunk.limit();
+            chunk.get(0, res, pos, len);
+            pos += len;
+        }
+        return res;
+    }
+
+    /** Closes the channel; the mappings themselves go away once they are unreachable. */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void write(Path file, CSRGraph g, boolean directed) throws IOException {
+        write(file, g.nodes, g.offsets, g.targets, null, directed);
+    }
+
+    public static void write(Path file, WeightedCSRGraph g, boolean directed) throws IOException {
+        write(file, g.nodes, g.offsets, g.targets, g.weights, directed);
+    }
+
+    private static void write(Path file, int n, int[] offs, int[] targs, int[] ws, boolean directed) throws IOException {
+        long m = targs.length;
+        try(RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw");
+            FileChannel channel = raf.getChannel()){
+            Layout layout = new Layout(n, m, ws != null);
+            raf.setLength(layout.size);
+            layout.writeHeader(channel, directed);
+
+            LongBuffer[] o = mapLongs(channel, FileChannel.MapMode.READ_WRITE, layout.offsetsPos, n + 1L);
+            for(int u=0; u<=n; u++) o[u >>> CHUNK_SHIFT].put(u & (int) CHUNK_MASK, offs[u]);
+            putInts(mapInts(channel, FileChannel.MapMode.READ_WRITE, layout.targetsPos, m), targs);
+            if(ws != null) putInts(mapInts(channel, FileChannel.MapMode.READ_WRITE, layout.weightsPos, m), ws);
+        }
+    }
+
+    /**
+     * Converts a text edge list, one "u v" or "u v w" per line ('#' and '%' start
+     * comments), into a graph file. Node count is the largest id + 1; the weight
+     * column is taken from the first edge line.
+     */
+    public static void convertEdgeList(Path edgeList, Path file, boolean directed) throws IOException {
+
+        long[] line = new long[3];
+
+        // pass 1: degrees
+        int[] degree = new int[1024];
+        int n = 0;
+        long m = 0;
+        int columns = -1;
+        try(EdgeListReader in = new EdgeListReader(Files.newInputStream(edgeList))){
+            int k;
+            while((k = in.readLine(line)) >= 0){
+                if(k == 0) continue;
+                if(k < 2) throw new IOException("line " + in.lineNumber + ": expected \"u v\" or \"u v w\"");
+                if(columns == -1) columns = Math.min(k, 3);
+                int u = Math.toIntExact(line[0]), v = Math.toIntExact(line[1]);
+                if(u < 0 || v < 0) throw new IOException("line " + in.lineNumber + ": negative node id");
+                int max = Math.max(u, v);
+                if(max >= degree.length) degree = Arrays.copyOf(degree, Math.max(max + 1, degree.length * 2));
+                n = Math.max(n, max + 1);
+                degree[u]++;
+                m++;
+                if(!directed){
+                    degree[v]++;
+                    m++;
+                }
+            }
+        }
+        boolean weighted = columns == 3;
+
+        try(RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw");
+            FileChannel channel = raf.getChannel()){
+            Layout layout = new Layout(n, m, weighted);
+            raf.setLength(0);
+            raf.setLength(layout.size);
+            layout.writeHeader(channel, directed);
+
+            long[] pos = new long[n];
+            LongBuffer[] o = mapLongs(channel, FileChannel.MapMode.READ_WRITE, layout.offsetsPos, n + 1L);
+            long sum = 0;
+            for(int u=0; u<=n; u++){
+                o[u >>> CHUNK_SHIFT].put(u & (int) CHUNK_MASK, sum);
+                if(u < n){
+                    pos[u] = sum;
+                    sum += degree[u];
+                }
+            }
+            degree = null;
+
+            // pass 2: scatter each edge to its source's next free slot
+            IntBuffer[] t = mapInts(channel, FileChannel.MapMode.READ_WRITE, layout.targetsPos, m);
+            IntBuffer[] w = weighted ? mapInts(channel, FileChannel.MapMode.READ_WRITE, layout.weightsPos, m) : null;
+            try(EdgeListReader in = new EdgeListReader(Files.newInputStream(edgeList))){
+                int k;
+                while((k = in.readLine(line)) >= 0){
+                    if(k == 0) continue;
+                    if(weighted && k < 3) throw new IOException("line " + in.lineNumber + ": missing weight");
+                    int u = (int) line[0], v = (int) line[1];
+                    int weight = weighted ? Math.toIntExact(line[2]) : 0;
+                    put(t, w, pos[u]++, v, weight);
+                    if(!directed) put(t, w, pos[v]++, u, weight);
+                }
+            }
+        }
+    }
+
+    private static void put(IntBuffer[] t, IntBuffer[] w, long e, int target, int weight){
+        int chunk = (int) (e >>> CHUNK_SHIFT), idx = (int) (e & CHUNK_MASK);
+        t[chunk].put(idx, target);
+        if(w != null) w[chunk].put(idx, weight);
+    }
+
+    /** Usage: java MappedCSRGraph edges.txt graph.csr [--undirected] */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2){
+            System.err.println("usage: java MappedCSRGraph <edge list> <output> [--undirected]");
+            System.exit(2);
+        }
+        boolean directed = !(args.length > 2 && args[2].equals("--undirected"));
+        long start = System.nanoTime();
+        convertEdgeList(Paths.get(args[0]), Paths.get(args[1]), directed);
+        try(MappedCSRGraph g = open(Paths.get(args[1]))){
+            System.out.printf("nodes=%d edges=%d weighted=%b in %.1f s%n",
+                g.nodeCount(), g.edgeCount(), g.isWeighted(), (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    // byte positions of the sections for a graph of n nodes and m edges
+    private static final class Layout {
+        final int n;
+        final long m;
+        final boolean weighted;
+        final long offsetsPos, targetsPos, weightsPos, size;
+
+        Layout(int n, long m, boolean weighted){
+            this.n = n;
+            this.m = m;
+            this.weighted = weighted;
+            offsetsPos = HEADER_BYTES;
+            targetsPos = offsetsPos + 8L * (n + 1);
+            weightsPos = weighted ? targetsPos + 4L * m : 0;
+            size = targetsPos + 4L * m * (weighted ? 2 : 1);
+        }
+
+        void writeHeader(FileChannel channel, boolean directed) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION)
+                  .putInt((weighted ? FLAG_WEIGHTED : 0) | (directed ? FLAG_DIRECTED : 0)).putInt(0)
+                  .putLong(n).putLong(m).putLong(offsetsPos).putLong(targetsPos).putLong(weightsPos).putLong(0);
+            header.flip();
+            while(header.hasRemaining()) channel.write(header, header.position());
+        }
+    }
+
+    private static LongBuffer[] mapLongs(FileChannel channel, FileChannel.MapMode mode, long pos, long count) throws IOException {
+        LongBuffer[] chunks = new LongBuffer[(int) ((count + CHUNK_MASK) >>> CHUNK_SHIFT)];
+        for(int c=0; c<chunks.length; c++){
+            long len = Math.min(1L << CHUNK_SHIFT, count - ((long) c << CHUNK_SHIFT));
+            chunks[c] = channel.map(mode, pos + 8L * ((long) c << CHUNK_SHIFT), 8L * len)
+                               .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+        return chunks;
+    }
+
+    private static IntBuffer[] mapInts(FileChannel channel, FileChannel.MapMode mode, long pos, long count) throws IOException {
+        IntBuffer[] chunks = new IntBuffer[(int) ((count + CHUNK_MASK) >>> CHUNK_SHIFT)];
+        for(int c=0; c<chunks.length; c++){
+            long len = Math.min(1L << CHUNK_SHIFT, count - ((long) c << CHUNK_SHIFT));
+            chunks[c] = channel.map(mode, pos + 4L * ((long) c << CHUNK_SHIFT), 4L * len)
+                               .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+        return chunks;
+    }
+
+    private static void putInts(IntBuffer[] chunks, int[] values){
+        int pos = 0;
+        for(IntBuffer chunk: chunks){
+            int len = chunk.limit();
+            chunk.put(0, values, pos, len);
+            pos += len;
+        }
+    }
+
+    // Whitespace separated integers, one edge per line, parsed straight from a
+    // byte buffer without going through String.
+    static final class EdgeListReader implements AutoCloseable {
+        private final InputStream in;
+        private final byte[] buf = new byte[1 << 16];
+        private int pos, len;
+        long lineNumber;
+
+        EdgeListReader(InputStream in){
+            this.in = in;
+        }
+
+        private int read() throws IOException {
+            if(pos == len){
+                len = in.read(buf, 0, buf.length);
+                pos = 0;
+                if(len <= 0){
+                    len = 0;
+                    return -1;
+                }
+            }
+            return buf[pos++];
+        }
+
+        // Reads up to out.length numbers from the next line into out. Returns how many
+        // were on the line (0 for blank and comment lines), or -1 at end of input.
+        int readLine(long[] out) throws IOException {
+            int c = read();
+            if(c < 0) return -1;
+            lineNumber++;
+
+            if(c == '#' || c == '%'){
+                while(c >= 0 && c != '\n') c = read();
+                return 0;
+            }
+            int count = 0;
+            while(c >= 0 && c != '\n'){
+                if(c == '-' || (c >= '0' && c <= '9')){
+                    boolean negative = c == '-';
+                    if(negative){
+                        c = read();
+                        if(c < '0' || c > '9') throw new IOException("line " + lineNumber + ": '-' without a number");
+                    }
+                    long value = 0;
+                    while(c >= '0' && c <= '9'){
+                        value = value * 10 + (c - '0');
+                        c = read();
+                    }
+                    if(count < out.length) out[count] = negative ? -value : value;
+                    count++;
+                    continue;
+                }
+                if(c != ' ' && c != '\t' && c != '\r' && c != ',') throw new IOException("line " + lineNumber + ": unexpected character '" + (char) c + "'");
+                c = read();
+            }
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
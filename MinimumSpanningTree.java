@@ -0,0 +1,197 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * MST engines over edges given as parallel primitive arrays u[], v[], w[].
+ *
+ * Edges are handled as long keys (w << 32 | edgeIndex): sorting a long[] needs no
+ * comparator or boxing, and the index breaks weight ties so every edge has a
+ * distinct key.
+ *
+ * filterKruskal (Osipov, Sanders, Singler): split around a sampled pivot, solve
+ * the light half, then drop heavy edges that already join one component before
+ * recursing on them. Partitioning and filtering run in parallel chunks.
+ *
+ * boruvka: each round every component picks its cheapest outgoing edge (atomic
+ * min over keys, in parallel), then the picked edges are merged.
+ *
+ * Both return DSU.KruskalResult like DSU.getMST.
+ */
+public final class MinimumSpanningTree {
+
+    static final int BASE_CASE = 1 << 14; // below this many edges just sort
+    static final int CHUNK = 1 << 13;
+    static final int PIVOT_SAMPLES = 101;
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private MinimumSpanningTree(){}
+
+    public static DSU.KruskalResult filterKruskal(int n, int[] u, int[] v, int[] w){
+
+        int m = u.length;
+        long[] keys = new long[m];
+        IntStream.range(0, m).parallel().forEach(i -> keys[i] = key(w[i], i));
+
+        DSU dsu = new DSU(n);
+        DSU.KruskalResult result = new DSU.KruskalResult();
+        filterKruskal(n, u, v, w, keys, new long[m], 0, m, dsu, result);
+
+        if(result.edges.size() == n-1) result.isSpanning = true;
+        return result;
+    }
+
+    private static void filterKruskal(int n, int[] u, int[] v, int[] w, long[] keys, long[] tmp,
+                                      int lo, int hi, DSU dsu, DSU.KruskalResult result){
+
+        if(result.edges.size() == n-1 || lo == hi) return;
+
+        if(hi - lo <= BASE_CASE){
+            Arrays.sort(keys, lo, hi);
+            for(int i=lo; i<hi; i++){
+                int e = (int) keys[i];
+                if(dsu.union(u[e], v[e])){
+                    result.edges.add(new DSU.Edge(u[e], v[e], w[e]));
+                    result.totalWeight += w[e];
+                    if(result.edges.size() == n-1) return;
+                }
+            }
+            return;
+        }
+
+        // median of evenly spaced samples; keys are distinct so both sides are non-empty
+        long[] samples = new long[PIVOT_SAMPLES];
+        int step = (hi - lo) / PIVOT_SAMPLES;
+        for(int i=0; i<PIVOT_SAMPLES; i++) samples[i] = keys[lo + i*step];
+        Arrays.sort(samples);
+        long pivot = samples[PIVOT_SAMPLES / 2];
+
+        int mid = partition(keys, tmp, lo, hi, pivot);
+        filterKruskal(n, u, v, w, keys, tmp, lo, mid, dsu, result);
+        if(result.edges.size() == n-1) return;
+
+        int end = filter(keys, tmp, mid, hi, u, v, dsu.parent);
+        filterKruskal(n, u, v, w, keys, tmp, mid, end, dsu, result);
+    }
+
+    // stable parallel partition of keys[lo, hi) into (<= pivot, > pivot); returns the split
+    private static int partition(long[] keys, long[] tmp, int lo, int hi, long pivot){
+
+        int chunks = (hi - lo + CHUNK - 1) / CHUNK;
+        int[] light = new int[chunks + 1];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int cnt = 0;
+            for(int i=lo + c*CHUNK, end=Math.min(hi, lo + (c+1)*CHUNK); i<end; i++){
+                if(keys[i] <= pivot) cnt++;
+            }
+            light[c+1] = cnt;
+        });
+        for(int c=0; c<chunks; c++) light[c+1] += light[c];
+
+        int totalLight = light[chunks];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int start = lo + c*CHUNK;
+            int lp = lo + light[c];
+            int hp = lo + totalLight + (start - lo - light[c]);
+            for(int i=start, end=Math.min(hi, start + CHUNK); i<end; i++){
+                if(keys[i] <= pivot) tmp[lp++] = keys[i];
+                else tmp[hp++] = keys[i];
+            }
+        });
+        System.arraycopy(tmp, lo, keys, lo, hi - lo);
+        return lo + totalLight;
+    }
+
+    // drops edges whose endpoints are already connected; returns the new end of the range
+    private static int filter(long[] keys, long[] tmp, int lo, int hi, int[] u, int[] v, int[] parent){
+
+        int chunks = (hi - lo + CHUNK - 1) / CHUNK;
+        int[] kept = new int[chunks + 1];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int start = lo + c*CHUNK, cnt = 0;
+            for(int i=start, end=Math.min(hi, start + CHUNK); i<end; i++){
+                int e = (int) keys[i];
+                if(root(parent, u[e]) != root(parent, v[e])) tmp[start + cnt++] = keys[i];
+            }
+            kept[c+1] = cnt;
+        });
+        for(int c=0; c<chunks; c++) kept[c+1] += kept[c];
+
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            System.arraycopy(tmp, lo + c*CHUNK, keys, lo + kept[c], kept[c+1] - kept[c]);
+        });
+        return lo + kept[chunks];
+    }
+
+    public static DSU.KruskalResult boruvka(int n, int[] u, int[] v, int[] w){
+
+        DSU dsu = new DSU(n);
+        DSU.KruskalResult result = new DSU.KruskalResult();
+        int[] parent = dsu.parent;
+
+        int[] active = IntStream.range(0, u.length).toArray();
+        int activeCount = active.length;
+        long[] best = new long[n];
+
+        while(activeCount > 0 && result.edges.size() < n-1){
+
+            Arrays.fill(best, Long.MAX_VALUE);
+            final int[] edges = active;
+            IntStream.range(0, activeCount).parallel().forEach(i -> {
+                int e = edges[i];
+                int ru = root(parent, u[e]), rv = root(parent, v[e]);
+                if(ru == rv) return;
+                long k = key(w[e], e);
+                atomicMin(best, ru, k);
+                atomicMin(best, rv, k);
+            });
+
+            boolean merged = false;
+            for(int r=0; r<n; r++){
+                if(best[r] == Long.MAX_VALUE) continue;
+                int e = (int) best[r];
+                // two components often pick the same edge, only the first union succeeds
+                if(dsu.union(u[e], v[e])){
+                    result.edges.add(new DSU.Edge(u[e], v[e], w[e]));
+                    result.totalWeight += w[e];
+                    merged = true;
+                }
+            }
+            if(!merged) break;
+
+            for(int x=0; x<n; x++) dsu.find(x); // shorten paths before the next parallel round
+
+            // keep only edges that still cross components
+            int kept = 0;
+            for(int i=0; i<activeCount; i++){
+                int e = active[i];
+                if(root(parent, u[e]) != root(parent, v[e])) active[kept++] = e;
+            }
+            activeCount = kept;
+        }
+
+        if(result.edges.size() == n-1) result.isSpanning = true;
+        return result;
+    }
+
+    private static long key(int weight, int edge){
+        return ((long) weight << 32) | edge;
+    }
+
+    // read-only find, safe to call from many threads while nobody is unioning
+    private static int root(int[] parent, int x){
+        while(parent[x] >= 0) x = parent[x];
+        return x;
+    }
+
+    private static void atomicMin(long[] arr, int i, long value){
+        long cur = (long) LONGS.getVolatile(arr, i);
+        while(value < cur){
+            long witness = (long) LONGS.compareAndExchange(arr, i, cur, value);
+            if(witness == cur) return;
+            cur = witness;
+        }
+    }
+}
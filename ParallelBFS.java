@@ -0,0 +1,174 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Level-synchronous, direction-optimizing BFS (Beamer et al.) over CSRGraph.
+ *
+ * Each level is expanded either top-down (frontier nodes push to unvisited
+ * neighbours) or bottom-up (unvisited nodes look for a parent in the frontier),
+ * whichever touches fewer edges:
+ *   - go bottom-up when the frontier's edges exceed unexplored edges / ALPHA
+ *   - go back top-down when the frontier shrinks below n / BETA nodes
+ *
+ * Frontiers and the visited set are bitsets. The work of one level is split into
+ * chunks of CHUNK_WORDS * 64 nodes and run on a fork-join pool.
+ */
+public final class ParallelBFS {
+
+    static final int ALPHA = 15;
+    static final int BETA = 18;
+    static final int CHUNK_WORDS = 64;
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final CSRGraph out;
+    private final CSRGraph in; // in-edges for the bottom-up step, same object for undirected graphs
+    private final ForkJoinPool pool;
+
+    public ParallelBFS(CSRGraph out, CSRGraph in, ForkJoinPool pool){
+        if(out.nodes != in.nodes) throw new IllegalArgumentException("out and in graphs differ in size");
+        this.out = out;
+        this.in = in;
+        this.pool = pool;
+    }
+
+    public ParallelBFS(CSRGraph out, CSRGraph in){
+        this(out, in, ForkJoinPool.commonPool());
+    }
+
+    /** For graphs whose CSR already holds both directions of every edge. */
+    public static ParallelBFS undirected(CSRGraph g){
+        return new ParallelBFS(g, g, ForkJoinPool.commonPool());
+    }
+
+    /** Returns level[v] = hop distance from source, or -1 if v is unreachable. */
+    public int[] levels(int source){
+
+        int n = out.nodes;
+        int words = (n + 63) >>> 6;
+        int chunks = (words + CHUNK_WORDS - 1) / CHUNK_WORDS;
+
+        int[] level = new int[n];
+        Arrays.fill(level, -1);
+        long[] visited = new long[words];
+        long[] frontier = new long[words];
+        long[] next = new long[words];
+        long[] chunkNodes = new long[chunks];
+        long[] chunkEdges = new long[chunks];
+
+        level[source] = 0;
+        visited[source >>> 6] |= 1L << source;
+        frontier[source >>> 6] |= 1L << source;
+
+        long frontierNodes = 1;
+        long frontierEdges = out.degree(source);
+        long unexploredEdges = out.edgeCount() - frontierEdges;
+        boolean bottomUp = false;
+
+        for(int depth = 0; frontierNodes > 0; depth++){
+
+            if(!bottomUp && frontierEdges > unexploredEdges / ALPHA) bottomUp = true;
+            else if(bottomUp && frontierNodes < n / BETA) bottomUp = false;
+
+            final int nextDepth = depth + 1;
+            final long[] cur = frontier, nxt = next;
+            if(bottomUp) runChunks(chunks, c -> bottomUpChunk(c, nextDepth, cur, nxt, visited, level, chunkNodes, chunkEdges));
+            else runChunks(chunks, c -> topDownChunk(c, nextDepth, cur, nxt, visited, level, chunkNodes, chunkEdges));
+
+            frontierNodes = 0;
+            frontierEdges = 0;
+            for(int c=0; c<chunks; c++){
+                frontierNodes += chunkNodes[c];
+                frontierEdges += chunkEdges[c];
+            }
+            unexploredEdges -= frontierEdges;
+
+            long[] tmp = frontier;
+            frontier = next;
+            next = tmp;
+            Arrays.fill(next, 0L);
+        }
+        return level;
+    }
+
+    private interface ChunkTask {
+        void run(int chunk);
+    }
+
+    private void runChunks(int chunks, ChunkTask task){
+        if(chunks == 1){
+            task.run(0);
+            return;
+        }
+        pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(task::run)).join();
+    }
+
+    private void topDownChunk(int chunk, int nextDepth, long[] cur, long[] next, long[] visited,
+                              int[] level, long[] chunkNodes, long[] chunkEdges){
+
+        int fromWord = chunk * CHUNK_WORDS;
+        int toWord = Math.min(cur.length, fromWord + CHUNK_WORDS);
+        long nodes = 0, edges = 0;
+
+        for(int w=fromWord; w<toWord; w++){
+            long bits = cur[w];
+            while(bits != 0){
+                int u = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                for(int e=out.offsets[u]; e<out.offsets[u+1]; e++){
+                    int v = out.targets[e];
+                    long mask = 1L << v;
+                    if(((long) LONGS.getOpaque(visited, v >>> 6) & mask) != 0) continue;
+                    // whoever flips the visited bit owns v for this level
+                    if(((long) LONGS.getAndBitwiseOr(visited, v >>> 6, mask) & mask) != 0) continue;
+
+                    level[v] = nextDepth;
+                    LONGS.getAndBitwiseOr(next, v >>> 6, mask);
+                    nodes++;
+                    edges += out.degree(v);
+                }
+            }
+        }
+        chunkNodes[chunk] = nodes;
+        chunkEdges[chunk] = edges;
+    }
+
+    private void bottomUpChunk(int chunk, int nextDepth, long[] cur, long[] next, long[] visited,
+                               int[] level, long[] chunkNodes, long[] chunkEdges){
+
+        int n = out.nodes;
+        int fromWord = chunk * CHUNK_WORDS;
+        int toWord = Math.min(cur.length, fromWord + CHUNK_WORDS);
+        long nodes = 0, edges = 0;
+
+        // every word in [fromWord, toWord) belongs to this chunk only, so plain writes are safe
+        for(int w=fromWord; w<toWord; w++){
+            long unvisited = ~visited[w];
+            if(w == cur.length - 1 && (n & 63) != 0) unvisited &= (1L << (n & 63)) - 1;
+
+            while(unvisited != 0){
+                int v = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+                long mask = unvisited & -unvisited;
+                unvisited &= unvisited - 1;
+
+                for(int e=in.offsets[v]; e<in.offsets[v+1]; e++){
+                    int u = in.targets[e];
+                    if((cur[u >>> 6] & (1L << u)) != 0){
+                        level[v] = nextDepth;
+                        visited[w] |= mask;
+                        next[w] |= mask;
+                        nodes++;
+                        edges += out.degree(v);
+                        break;
+                    }
+                }
+            }
+        }
+        chunkNodes[chunk] = nodes;
+        chunkEdges[chunk] = edges;
+    }
+}
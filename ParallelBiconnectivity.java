@@ -0,0 +1,305 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Bridges and articulation points of an undirected multigraph on all cores,
+ * after Tarjan and Vishkin ("An efficient parallel biconnectivity algorithm").
+ *
+ * Instead of a DFS tree, which is inherently sequential, it uses any spanning
+ * forest; here a parallel BFS forest with one root per component:
+ *   1. preorder numbers pre[v] and subtree sizes size[v] of the forest, so every
+ *      subtree is the preorder range [pre[v], pre[v] + size[v])
+ *   2. low[v] / high[v]: the smallest / largest preorder number reachable from
+ *      v's subtree by one non-tree edge (or the subtree itself)
+ *   3. tree edge (parent[v], v) is a bridge iff low[v] and high[v] stay in v's range
+ *   4. an auxiliary graph over tree edges (tree edge into v is aux node v) joins
+ *      - both ends of a non-tree edge when neither is an ancestor of the other
+ *      - v with its parent p when v's subtree has a non-tree edge leaving p's subtree
+ *      Its components, from ConnectedComponents, are the biconnected blocks, and
+ *      v is an articulation point iff its tree edges fall in two or more blocks.
+ *
+ * The Euler tour of the paper is replaced by per-level passes over the BFS
+ * levels (bottom-up for sizes and low/high, top-down for preorder), which are
+ * parallel within each level and need no list ranking.
+ *
+ * Results have the same shapes as TarjansBridgeAndArticulationPoints. Bridges
+ * are {parent, child} in the BFS forest, so compare them as unordered pairs.
+ */
+public final class ParallelBiconnectivity {
+
+    static final int CHUNK = 1024;
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    final int n;
+    final int[] from, to;
+
+    // incidence lists: slots offsets[u]..offsets[u+1] hold the neighbour and edge id
+    private final int[] offsets, adj, adjEdge;
+
+    final int[] parent, parentEdge; // -1 for roots
+    private int[] order;            // BFS order, level by level
+    private int[] levelStart;       // level l is order[levelStart[l] .. levelStart[l+1])
+    private int levels;
+    private int[] childOffsets, children;
+
+    final int[] pre, size, low, high;
+    final boolean[] bridge;         // by edge id
+    final boolean[] articulation;
+
+    public ParallelBiconnectivity(int n, int[] from, int[] to){
+        this.n = n;
+        this.from = from;
+        this.to = to;
+
+        int m = from.length;
+        offsets = new int[n+1];
+        for(int e=0; e<m; e++){
+            offsets[from[e]+1]++;
+            offsets[to[e]+1]++;
+        }
+        for(int i=0; i<n; i++) offsets[i+1] += offsets[i];
+        adj = new int[2*m];
+        adjEdge = new int[2*m];
+        int[] pos = Arrays.copyOf(offsets, n);
+        for(int e=0; e<m; e++){
+            adj[pos[from[e]]] = to[e];
+            adjEdge[pos[from[e]]++] = e;
+            adj[pos[to[e]]] = from[e];
+            adjEdge[pos[to[e]]++] = e;
+        }
+
+        parent = new int[n];
+        parentEdge = new int[n];
+        pre = new int[n];
+        size = new int[n];
+        low = new int[n];
+        high = new int[n];
+        bridge = new boolean[m];
+        articulation = new boolean[n];
+
+        spanningForest();
+        numberSubtrees();
+        lowHigh();
+        findBridges();
+        findArticulationPoints();
+    }
+
+    /** Undirected edges as {u, v} pairs. */
+    public static ParallelBiconnectivity of(int n, int[][] edges){
+        int[] from = new int[edges.length], to = new int[edges.length];
+        for(int i=0; i<edges.length; i++){
+            from[i] = edges[i][0];
+            to[i] = edges[i][1];
+        }
+        return new ParallelBiconnectivity(n, from, to);
+    }
+
+    // multi-source top-down BFS from the smallest node of every component; a node
+    // joins the tree through whichever frontier node wins the CAS on parent[v]
+    private void spanningForest(){
+
+        int[] label = ConnectedComponents.of(n, from, to).labels();
+        int[] seenLabel = new int[n];
+        Arrays.fill(seenLabel, -1);
+        Arrays.fill(parent, -1);
+        Arrays.fill(parentEdge, -1);
+
+        order = new int[n];
+        int count = 0;
+        for(int v=0; v<n; v++){
+            if(seenLabel[label[v]] != -1) continue;
+            seenLabel[label[v]] = v;
+            parent[v] = v; // marks visited, reset to -1 below
+            order[count++] = v;
+        }
+
+        levelStart = new int[16];
+        levelStart[0] = 0;
+        levelStart[1] = count;
+        levels = 1;
+
+        while(levelStart[levels] > levelStart[levels-1]){
+            int first = levelStart[levels-1], last = levelStart[levels];
+            int chunks = (last - first + CHUNK - 1) / CHUNK;
+            int[] next = IntStream.range(0, chunks).parallel().mapToObj(c -> {
+                int[] claimed = new int[16];
+                int cnt = 0;
+                for(int i=first+c*CHUNK, end=Math.min(last, first+(c+1)*CHUNK); i<end; i++){
+                    int u = order[i];
+                    for(int s=offsets[u]; s<offsets[u+1]; s++){
+                        int v = adj[s];
+                        if(parent[v] != -1 || !INTS.compareAndSet(parent, v, -1, u)) continue;
+                        parentEdge[v] = adjEdge[s];
+                        if(cnt == claimed.length) claimed = Arrays.copyOf(claimed, cnt * 2);
+                        claimed[cnt++] = v;
+                    }
+                }
+                return Arrays.copyOf(claimed, cnt);
+            }).flatMapToInt(IntStream::of).toArray();
+
+            System.arraycopy(next, 0, order, last, next.length);
+            if(levels + 2 > levelStart.length) levelStart = Arrays.copyOf(levelStart, levelStart.length * 2);
+            levelStart[levels+1] = last + next.length;
+            levels++;
+        }
+        levels--; // the last level added was empty
+
+        for(int v=0; v<n; v++){
+            if(parent[v] == v) parent[v] = -1;
+        }
+    }
+
+    private void numberSubtrees(){
+
+        // children grouped by parent; BFS order already groups them level by level
+        childOffsets = new int[n+1];
+        for(int v=0; v<n; v++){
+            if(parent[v] != -1) childOffsets[parent[v]+1]++;
+        }
+        for(int i=0; i<n; i++) childOffsets[i+1] += childOffsets[i];
+        children = new int[childOffsets[n]];
+        int[] pos = Arrays.copyOf(childOffsets, n);
+        for(int i=0; i<n; i++){
+            int v = order[i];
+            if(parent[v] != -1) children[pos[parent[v]]++] = v;
+        }
+
+        for(int l=levels-1; l>=0; l--){
+            forEachInLevel(l, v -> {
+                int s = 1;
+                for(int i=childOffsets[v]; i<childOffsets[v+1]; i++) s += size[children[i]];
+                size[v] = s;
+            });
+        }
+
+        int next = 0;
+        for(int i=levelStart[0]; i<levelStart[1]; i++){
+            pre[order[i]] = next;
+            next += size[order[i]];
+        }
+        for(int l=0; l<levels; l++){
+            forEachInLevel(l, v -> {
+                int p = pre[v] + 1;
+                for(int i=childOffsets[v]; i<childOffsets[v+1]; i++){
+                    pre[children[i]] = p;
+                    p += size[children[i]];
+                }
+            });
+        }
+    }
+
+    private void lowHigh(){
+
+        // own value plus every incident edge except the tree edge v hangs from; edges to
+        // children land inside the subtree range and do not move low/high past it
+        IntStream.range(0, n).parallel().forEach(v -> {
+            int lo = pre[v], hi = pre[v];
+            for(int s=offsets[v]; s<offsets[v+1]; s++){
+                if(adjEdge[s] == parentEdge[v]) continue;
+                int p = pre[adj[s]];
+                lo = Math.min(lo, p);
+                hi = Math.max(hi, p);
+            }
+            low[v] = lo;
+            high[v] = hi;
+        });
+
+        for(int l=levels-1; l>=0; l--){
+            forEachInLevel(l, v -> {
+                for(int i=childOffsets[v]; i<childOffsets[v+1]; i++){
+                    int c = children[i];
+                    low[v] = Math.min(low[v], low[c]);
+                    high[v] = Math.max(high[v], high[c]);
+                }
+            });
+        }
+    }
+
+    private void findBridges(){
+        IntStream.range(0, n).parallel().forEach(v -> {
+            if(parent[v] == -1) return;
+            if(low[v] >= pre[v] && high[v] < pre[v] + size[v]) bridge[parentEdge[v]] = true;
+        });
+    }
+
+    private void findArticulationPoints(){
+
+        int m = from.length;
+        int[] nonTree = IntStream.range(0, m).parallel().filter(e -> {
+            int u = from[e], w = to[e];
+            return u != w && !isAncestor(u, w) && !isAncestor(w, u);
+        }).toArray();
+        int[] escaping = IntStream.range(0, n).parallel().filter(v -> {
+            int p = parent[v];
+            if(p == -1 || parent[p] == -1) return false;
+            return low[v] < pre[p] || high[v] >= pre[p] + size[p];
+        }).toArray();
+
+        int auxEdges = nonTree.length + escaping.length;
+        int[] auxFrom = new int[auxEdges], auxTo = new int[auxEdges];
+        IntStream.range(0, nonTree.length).parallel().forEach(i -> {
+            auxFrom[i] = from[nonTree[i]];
+            auxTo[i] = to[nonTree[i]];
+        });
+        IntStream.range(0, escaping.length).parallel().forEach(i -> {
+            auxFrom[nonTree.length + i] = escaping[i];
+            auxTo[nonTree.length + i] = parent[escaping[i]];
+        });
+        int[] block = ConnectedComponents.of(n, auxFrom, auxTo).labels();
+
+        IntStream.range(0, n).parallel().forEach(v -> {
+            int first = parent[v] != -1 ? block[v] : -1;
+            for(int i=childOffsets[v]; i<childOffsets[v+1]; i++){
+                int b = block[children[i]];
+                if(first == -1) first = b;
+                else if(b != first){
+                    articulation[v] = true;
+                    return;
+                }
+            }
+        });
+    }
+
+    private boolean isAncestor(int a, int b){
+        return pre[a] <= pre[b] && pre[b] < pre[a] + size[a];
+    }
+
+    private void forEachInLevel(int l, IntConsumer action){
+        int first = levelStart[l], last = levelStart[l+1];
+        if(last - first < CHUNK){
+            for(int i=first; i<last; i++) action.accept(order[i]);
+            return;
+        }
+        IntStream.range(first, last).parallel().forEach(i -> action.accept(order[i]));
+    }
+
+    public boolean isBridge(int edge){
+        return bridge[edge];
+    }
+
+    public boolean isArticulationPoint(int v){
+        return articulation[v];
+    }
+
+    /** Bridges as {parent, child} pairs of the BFS forest, same shape as getBridges(). */
+    public List<int[]> bridges(){
+        List<int[]> res = new ArrayList<>();
+        for(int v=0; v<n; v++){
+            if(parent[v] != -1 && bridge[parentEdge[v]]) res.add(new int[]{parent[v], v});
+        }
+        return res;
+    }
+
+    /** Articulation points in increasing order, same shape as getArticulationPoints(). */
+    public List<Integer> articulationPoints(){
+        List<Integer> res = new ArrayList<>();
+        for(int v=0; v<n; v++){
+            if(articulation[v]) res.add(v);
+        }
+        return res;
+    }
+}
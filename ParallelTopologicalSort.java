@@ -0,0 +1,200 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Kahn's algorithm with each zero in-degree frontier processed in parallel.
+ *
+ * levels() returns the wavefronts: level 0 has no dependencies, level i+1 holds
+ * the nodes whose last dependency is in level i. Nodes of one level are
+ * independent, and successors are released with atomic in-degree decrements,
+ * so whichever thread drops a count to zero adds that node to the next level.
+ *
+ * execute() uses the same counting as a DAG scheduler. A node's callback is
+ * submitted as soon as all its predecessors have finished, without waiting for
+ * the rest of its level.
+ */
+public final class ParallelTopologicalSort {
+
+    static final int CHUNK = 1024;
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private ParallelTopologicalSort(){}
+
+    /** Wavefronts of the DAG, or an empty array when the graph has a cycle. */
+    public static int[][] levels(CSRGraph g){
+
+        int n = g.nodes;
+        int[] indegree = indegrees(g);
+
+        ArrayList<int[]> levels = new ArrayList<int[]>();
+        int[] frontier = IntStream.range(0, n).parallel().filter(v -> indegree[v] == 0).toArray();
+        int seen = 0;
+
+        while(frontier.length > 0){
+            levels.add(frontier);
+            seen += frontier.length;
+
+            final int[] cur = frontier;
+            int chunks = (cur.length + CHUNK - 1) / CHUNK;
+            frontier = IntStream.range(0, chunks).parallel().mapToObj(c -> {
+                int[] released = new int[16];
+                int cnt = 0;
+                for(int i=c*CHUNK, end=Math.min(cur.length, (c+1)*CHUNK); i<end; i++){
+                    int u = cur[i];
+                    for(int e=g.offsets[u]; e<g.offsets[u+1]; e++){
+                        int v = g.targets[e];
+                        if((int) INTS.getAndAdd(indegree, v, -1) == 1){
+                            if(cnt == released.length) released = Arrays.copyOf(released, cnt * 2);
+                            released[cnt++] = v;
+                        }
+                    }
+                }
+                return Arrays.copyOf(released, cnt);
+            }).flatMapToInt(IntStream::of).toArray();
+        }
+
+        if(seen != n) return new int[0][];
+        return levels.toArray(new int[0][]);
+    }
+
+    /** Runs task(v) for every node on the common pool, each after all its predecessors. */
+    public static void execute(CSRGraph g, IntConsumer task){
+        execute(g, task, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs task(v) for every node on executor, starting each node as soon as all
+     * its predecessors have completed. Blocks until everything has run. If a task
+     * throws, or executor rejects one, no new tasks are started and the first
+     * failure is rethrown.
+     */
+    public static void execute(CSRGraph g, IntConsumer task, Executor executor){
+
+        int n = g.nodes;
+        if(n > 0 && g.topologicalSort().length != n) throw new IllegalArgumentException("graph has a cycle");
+
+        int[] pending = indegrees(g);
+        CountDownLatch done = new CountDownLatch(n);
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        // sources are collected before anything runs, running tasks already decrement pending
+        int[] sources = IntStream.range(0, n).filter(v -> pending[v] == 0).toArray();
+        Scheduler scheduler = new Scheduler(g, task, executor, pending, done, failure);
+        for(int v: sources) scheduler.submit(v);
+
+        try{
+            done.await();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for tasks", e);
+        }
+
+        Throwable t = failure.get();
+        if(t instanceof RuntimeException) throw (RuntimeException) t;
+        if(t instanceof Error) throw (Error) t;
+        if(t != null) throw new RuntimeException(t);
+    }
+
+    private static final class Scheduler {
+        final CSRGraph g;
+        final IntConsumer task;
+        final Executor executor;
+        final int[] pending;
+        final CountDownLatch done;
+        final AtomicReference<Throwable> failure;
+        // work list of the run() active on this thread. An executor may run a task on
+        // the submitting thread (Runnable::run, CallerRunsPolicy); that nested run()
+        // only queues its node here, so the stack never grows with the graph.
+        final ThreadLocal<WorkList> active = new ThreadLocal<WorkList>();
+
+        Scheduler(CSRGraph g, IntConsumer task, Executor executor, int[] pending,
+                  CountDownLatch done, AtomicReference<Throwable> failure){
+            this.g = g;
+            this.task = task;
+            this.executor = executor;
+            this.pending = pending;
+            this.done = done;
+            this.failure = failure;
+        }
+
+        // after a failure, including the executor rejecting a task, nodes are only
+        // counted down, not run
+        void submit(int v){
+            if(failure.get() == null){
+                try{
+                    executor.execute(() -> run(v));
+                    return;
+                }catch(Throwable t){
+                    failure.compareAndSet(null, t);
+                }
+            }
+            WorkList skipped = new WorkList();
+            skipped.push(v);
+            drain(skipped, true);
+        }
+
+        void run(int v){
+            WorkList outer = active.get();
+            if(outer != null){
+                outer.push(v);
+                return;
+            }
+            WorkList work = new WorkList();
+            work.push(v);
+            active.set(work);
+            try{
+                drain(work, false);
+            }finally{
+                active.remove();
+            }
+        }
+
+        // runs (or with skip, only counts down) every node on the list and the ones
+        // they release; released nodes are submitted, skipped ones go on the list
+        private void drain(WorkList work, boolean skip){
+            while(work.size > 0){
+                int u = work.nodes[--work.size];
+                if(!skip && failure.get() == null){
+                    try{
+                        task.accept(u);
+                    }catch(Throwable t){
+                        failure.compareAndSet(null, t);
+                    }
+                }
+
+                for(int e=g.offsets[u]; e<g.offsets[u+1]; e++){
+                    int w = g.targets[e];
+                    if((int) INTS.getAndAdd(pending, w, -1) == 1){
+                        if(skip) work.push(w);
+                        else submit(w);
+                    }
+                }
+                done.countDown();
+            }
+        }
+    }
+
+    private static final class WorkList {
+        int[] nodes = new int[16];
+        int size;
+
+        void push(int v){
+            if(size == nodes.length) nodes = Arrays.copyOf(nodes, size * 2);
+            nodes[size++] = v;
+        }
+    }
+
+    private static int[] indegrees(CSRGraph g){
+        int[] indegree = new int[g.nodes];
+        for(int e=0; e<g.targets.length; e++) indegree[g.targets[e]]++;
+        return indegree;
+    }
+}
@@ -0,0 +1,216 @@
+import java.util.*;
+
+/**
+ * Single source-target shortest path queries that stop as soon as the answer is
+ * known instead of computing a full distance array.
+ *
+ *   - bidirectional: Dijkstra from the source on the graph and from the target on
+ *     the reversed graph, stopping once the two heap minimums add up to at least
+ *     the best meeting distance found so far.
+ *   - astar: Dijkstra ordered by distance + heuristic(v, target). Any admissible
+ *     Heuristic can be plugged in; Landmarks is the ALT heuristic built from
+ *     precomputed landmark distance tables.
+ *
+ * Per-thread DijkstraEngine workspaces are reused, so queries do not allocate
+ * beyond the returned path.
+ */
+public final class PointToPointSearch {
+
+    static final long INF = DijkstraEngine.INF;
+
+    /** Lower bound on the distance from v to target. Must never overestimate. */
+    public interface Heuristic {
+        long estimate(int v, int target);
+    }
+
+    public static final Heuristic ZERO = (v, target) -> 0;
+
+    public static final class PathResult {
+        final long distance; // INF when target is unreachable
+        final int[] path;    // source .. target, empty when unreachable
+        final int settled;   // nodes taken off the heap(s)
+
+        PathResult(long distance, int[] path, int settled){
+            this.distance = distance;
+            this.path = path;
+            this.settled = settled;
+        }
+
+        public long distance(){ return distance; }
+        public int[] path(){ return path; }
+        public int settled(){ return settled; }
+    }
+
+    final WeightedCSRGraph graph;
+    final WeightedCSRGraph reverse;
+    private final ThreadLocal<DijkstraEngine.Workspace[]> workspaces;
+
+    public PointToPointSearch(WeightedCSRGraph graph){
+        this(graph, graph.transpose());
+    }
+
+    /** For undirected graphs pass the same graph twice to skip building the transpose. */
+    public PointToPointSearch(WeightedCSRGraph graph, WeightedCSRGraph reverse){
+        if(graph.hasNegativeWeights()) throw new IllegalArgumentException("Dijkstra needs non-negative weights");
+        this.graph = graph;
+        this.reverse = reverse;
+        int n = graph.nodes;
+        this.workspaces = ThreadLocal.withInitial(() ->
+            new DijkstraEngine.Workspace[]{ new DijkstraEngine.Workspace(n), new DijkstraEngine.Workspace(n) });
+    }
+
+    public PathResult bidirectional(int src, int target){
+
+        DijkstraEngine.Workspace[] pair = workspaces.get();
+        DijkstraEngine.Workspace fwd = pair[0], bwd = pair[1];
+        fwd.reset();
+        bwd.reset();
+        fwd.relax(src, 0, -1);
+        bwd.relax(target, 0, -1);
+
+        long best = src == target ? 0 : INF;
+        int meet = src == target ? src : -1;
+
+        while(!fwd.heap.isEmpty() && !bwd.heap.isEmpty()){
+            if(fwd.heap.peekKey() + bwd.heap.peekKey() >= best) break;
+
+            // expand the side whose next node is closer
+            boolean forward = fwd.heap.peekKey() <= bwd.heap.peekKey();
+            DijkstraEngine.Workspace side = forward ? fwd : bwd;
+            DijkstraEngine.Workspace other = forward ? bwd : fwd;
+            WeightedCSRGraph g = forward ? graph : reverse;
+
+            int u = side.heap.poll();
+            side.settled++;
+            long du = side.dist[u];
+
+            for(int e=g.offsets[u]; e<g.offsets[u+1]; e++){
+                int v = g.targets[e];
+                long nd = du + g.weights[e];
+                if(nd < side.dist[v]) side.relax(v, nd, u);
+
+                if(other.dist[v] != INF && side.dist[v] + other.dist[v] < best){
+                    best = side.dist[v] + other.dist[v];
+                    meet = v;
+                }
+            }
+        }
+
+        int settled = fwd.settled + bwd.settled;
+        if(meet == -1) return new PathResult(INF, new int[0], settled);
+
+        // forward parents lead back to src, backward parents lead on to target
+        int[] head = fwd.path(meet);
+        int tailLen = 0;
+        for(int v=bwd.parent[meet]; v!=-1; v=bwd.parent[v]) tailLen++;
+        int[] path = Arrays.copyOf(head, head.length + tailLen);
+        int i = head.length;
+        for(int v=bwd.parent[meet]; v!=-1; v=bwd.parent[v]) path[i++] = v;
+
+        return new PathResult(best, path, settled);
+    }
+
+    public PathResult astar(int src, int target, Heuristic h){
+
+        DijkstraEngine.Workspace ws = workspaces.get()[0];
+        ws.reset();
+        ws.relax(src, 0, -1, h.estimate(src, target));
+
+        while(!ws.heap.isEmpty()){
+            int u = ws.heap.poll();
+            ws.settled++;
+            if(u == target) break;
+
+            long du = ws.dist[u];
+            for(int e=graph.offsets[u]; e<graph.offsets[u+1]; e++){
+                int v = graph.targets[e];
+                long nd = du + graph.weights[e];
+                // an inconsistent heuristic can reopen a settled node; push handles that
+                if(nd < ws.dist[v]) ws.relax(v, nd, u, nd + h.estimate(v, target));
+            }
+        }
+
+        return new PathResult(ws.dist[target], ws.path(target), ws.settled);
+    }
+
+    /**
+     * ALT heuristic: for a landmark L the triangle inequality gives
+     *   d(v,t) >= d(L,t) - d(L,v)   and   d(v,t) >= d(v,L) - d(t,L)
+     * and the estimate is the largest such bound over all landmarks.
+     */
+    public static final class Landmarks implements Heuristic {
+
+        final int n;
+        final int[] landmarks;
+        final long[] fromLandmark; // [l*n + v] = d(L_l, v)
+        final long[] toLandmark;   // [l*n + v] = d(v, L_l)
+
+        private Landmarks(int n, int[] landmarks, long[] fromLandmark, long[] toLandmark){
+            this.n = n;
+            this.landmarks = landmarks;
+            this.fromLandmark = fromLandmark;
+            this.toLandmark = toLandmark;
+        }
+
+        /**
+         * Picks k landmarks by farthest-point selection and precomputes their
+         * distance tables with one forward and one backward Dijkstra each.
+         */
+        public static Landmarks select(WeightedCSRGraph graph, WeightedCSRGraph reverse, int k){
+
+            int n = graph.nodes;
+            k = Math.min(k, n);
+            if((long) k * n > Integer.MAX_VALUE) throw new IllegalArgumentException("landmark tables too large, use fewer landmarks");
+            DijkstraEngine forward = new DijkstraEngine(graph);
+            DijkstraEngine backward = new DijkstraEngine(reverse);
+
+            int[] landmarks = new int[k];
+            long[] from = new long[k * n];
+            long[] to = new long[k * n];
+            long[] nearest = new long[n]; // distance to the closest landmark picked so far
+            Arrays.fill(nearest, INF);
+
+            int next = farthest(forward.query(0).dist);
+            for(int l=0; l<k; l++){
+                landmarks[l] = next;
+                long[] d = forward.query(next).dist;
+                System.arraycopy(d, 0, from, l*n, n);
+                System.arraycopy(backward.query(next).dist, 0, to, l*n, n);
+
+                for(int v=0; v<n; v++) nearest[v] = Math.min(nearest[v], d[v]);
+                next = farthest(nearest);
+            }
+            return new Landmarks(n, landmarks, from, to);
+        }
+
+        // reachable node with the largest distance; unreachable ones (INF) are skipped
+        private static int farthest(long[] dist){
+            int best = 0;
+            long bestDist = -1;
+            for(int v=0; v<dist.length; v++){
+                if(dist[v] != INF && dist[v] > bestDist){
+                    best = v;
+                    bestDist = dist[v];
+                }
+            }
+            return best;
+        }
+
+        public int[] landmarks(){
+            return landmarks;
+        }
+
+        @Override
+        public long estimate(int v, int target){
+            long best = 0;
+            for(int l=0, base=0; l<landmarks.length; l++, base+=n){
+                long lt = fromLandmark[base + target], lv = fromLandmark[base + v];
+                if(lt != INF && lv != INF) best = Math.max(best, lt - lv);
+
+                long vl = toLandmark[base + v], tl = toLandmark[base + target];
+                if(vl != INF && tl != INF) best = Math.max(best, vl - tl);
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+import java.util.*;
+
+/**
+ * "Can u reach v" queries on a directed graph, answered from an index over its
+ * condensation (the DAG of strongly connected components).
+ *
+ * Components are renumbered in reverse topological order, so every DAG edge goes
+ * from a higher id to a lower one and u can only reach v if comp[u] >= comp[v].
+ *
+ * Small DAGs (up to BITSET_COMPONENTS components) store the full transitive
+ * closure as one bitset row per component; a query is a single bit test.
+ *
+ * Larger DAGs use GRAIL (Yildirim, Chaoji and Zaki): LABELINGS randomized DFS
+ * post-order traversals each give every component an interval [low, rank] with
+ * the property that reachability implies containment. A failed containment test
+ * is a definite "no". When all intervals contain the target, a DFS runs from the
+ * source that only enters components whose intervals still contain the target.
+ * The index takes LABELINGS * 2 ints per component.
+ */
+public final class ReachabilityIndex {
+
+    static final int BITSET_COMPONENTS = 1 << 12;
+    static final int LABELINGS = 3;
+
+    final int[] comp;           // component of every node
+    final int count;
+    final CSRGraph dag;         // condensation, edges from higher to lower component id
+
+    private final long[][] closure; // closure[c] has bit d set iff c reaches d, null for GRAIL
+    private final int[] low, rank;  // GRAIL labels, labelling i of c at i*count + c
+
+    private final ThreadLocal<Scratch> scratch;
+
+    private static final class Scratch {
+        final int[] seen;  // stamp of the query that last visited a component
+        int[] stack = new int[16];
+        int stamp;
+
+        Scratch(int count){
+            seen = new int[count];
+        }
+    }
+
+    /** Index over SCCs computed by StronglyConnectedComponents.tarjan. */
+    public static ReachabilityIndex build(CSRGraph g){
+        ConnectedComponents.Result sccs = StronglyConnectedComponents.tarjan(g);
+        return new ReachabilityIndex(g, sccs.labels(), sccs.count());
+    }
+
+    /** Index over an existing Kosaraju.getSCCs result for the same graph. */
+    public static ReachabilityIndex of(CSRGraph g, List<List<Integer>> sccs){
+        int[] label = new int[g.nodes];
+        for(int c=0; c<sccs.size(); c++){
+            for(int v: sccs.get(c)) label[v] = c;
+        }
+        return new ReachabilityIndex(g, label, sccs.size());
+    }
+
+    /** label[v] in [0, count) must give the strongly connected components of g. */
+    public ReachabilityIndex(CSRGraph g, int[] label, int count){
+
+        this.count = count;
+        CSRGraph condensed = condense(g, label, count);
+
+        // renumber so that DAG edges point to smaller ids
+        int[] topo = condensed.topologicalSort();
+        if(topo.length != count) throw new IllegalArgumentException("labels are not strongly connected components");
+        int[] newId = new int[count];
+        for(int i=0; i<count; i++) newId[topo[i]] = count - 1 - i;
+
+        comp = new int[g.nodes];
+        for(int v=0; v<g.nodes; v++) comp[v] = newId[label[v]];
+        dag = condense(g, comp, count);
+
+        scratch = ThreadLocal.withInitial(() -> new Scratch(count));
+
+        if(count <= BITSET_COMPONENTS){
+            closure = transitiveClosure();
+            low = null;
+            rank = null;
+        }else{
+            closure = null;
+            low = new int[LABELINGS * count];
+            rank = new int[LABELINGS * count];
+            Random random = new Random(count);
+            for(int i=0; i<LABELINGS; i++) label(i, random);
+        }
+    }
+
+    public boolean reaches(int u, int v){
+
+        int cu = comp[u], cv = comp[v];
+        if(cu == cv) return true;
+        if(cu < cv) return false;
+        if(closure != null) return (closure[cu][cv >>> 6] & (1L << cv)) != 0;
+        if(!contains(cu, cv)) return false;
+
+        // pruned DFS over components whose intervals still contain cv
+        Scratch s = scratch.get();
+        int stamp = ++s.stamp;
+        if(stamp == 0){
+            Arrays.fill(s.seen, 0);
+            stamp = s.stamp = 1;
+        }
+        int top = 0;
+        s.stack[top++] = cu;
+        s.seen[cu] = stamp;
+        while(top > 0){
+            int c = s.stack[--top];
+            for(int e=dag.offsets[c]; e<dag.offsets[c+1]; e++){
+                int d = dag.targets[e];
+                if(d == cv) return true;
+                if(s.seen[d] == stamp || d < cv || !contains(d, cv)) continue;
+                s.seen[d] = stamp;
+                if(top == s.stack.length) s.stack = Arrays.copyOf(s.stack, top * 2);
+                s.stack[top++] = d;
+            }
+        }
+        return false;
+    }
+
+    public int component(int v){
+        return comp[v];
+    }
+
+    public int componentCount(){
+        return count;
+    }
+
+    /** The condensation DAG; component ids are those of component(). */
+    public CSRGraph condensation(){
+        return dag;
+    }
+
+    // every labelling must nest cv's interval inside cu's
+    private boolean contains(int cu, int cv){
+        for(int i=0; i<LABELINGS; i++){
+            int a = i*count + cu, b = i*count + cv;
+            if(low[b] < low[a] || rank[b] > rank[a]) return false;
+        }
+        return true;
+    }
+
+    // components in increasing id, so every successor's row is done first
+    private long[][] transitiveClosure(){
+        int words = (count + 63) >>> 6;
+        long[][] rows = new long[count][];
+        for(int c=0; c<count; c++){
+            long[] row = new long[words];
+            row[c >>> 6] |= 1L << c;
+            for(int e=dag.offsets[c]; e<dag.offsets[c+1]; e++){
+                long[] succ = rows[dag.targets[e]];
+                for(int w=0; w<words; w++) row[w] |= succ[w];
+            }
+            rows[c] = row;
+        }
+        return rows;
+    }
+
+    // One randomized post-order: roots in random order, each node's children
+    // from a random starting offset. low = smallest rank in the node's reach.
+    private void label(int i, Random random){
+
+        int base = i * count;
+        int[] roots = new int[count];
+        int rootCount = 0;
+        boolean[] hasParent = new boolean[count];
+        for(int e=0; e<dag.targets.length; e++) hasParent[dag.targets[e]] = true;
+        for(int c=0; c<count; c++) if(!hasParent[c]) roots[rootCount++] = c;
+        for(int k=rootCount-1; k>0; k--){
+            int j = random.nextInt(k+1);
+            int t = roots[k]; roots[k] = roots[j]; roots[j] = t;
+        }
+
+        boolean[] visited = new boolean[count];
+        int[] stack = new int[16], start = new int[16], step = new int[16];
+        int next = 0;
+        for(int r=0; r<rootCount; r++){
+            int top = 0;
+            stack[0] = roots[r];
+            start[0] = random.nextInt(Math.max(1, dag.degree(roots[r])));
+            step[0] = 0;
+            visited[roots[r]] = true;
+
+            while(top >= 0){
+                int c = stack[top];
+                int degree = dag.degree(c);
+                if(step[top] < degree){
+                    int d = dag.targets[dag.offsets[c] + (start[top] + step[top]++) % degree];
+                    if(visited[d]) continue;
+                    visited[d] = true;
+                    if(++top == stack.length){
+                        stack = Arrays.copyOf(stack, top * 2);
+                        start = Arrays.copyOf(start, top * 2);
+                        step = Arrays.copyOf(step, top * 2);
+                    }
+                    stack[top] = d;
+                    start[top] = random.nextInt(Math.max(1, dag.degree(d)));
+                    step[top] = 0;
+                    continue;
+                }
+
+                // all successors are finished in a DAG, so their lows are final
+                int lo = next;
+                for(int e=dag.offsets[c]; e<dag.offsets[c+1]; e++) lo = Math.min(lo, low[base + dag.targets[e]]);
+                rank[base + c] = next++;
+                low[base + c] = lo;
+                top--;
+            }
+        }
+    }
+
+    // edges between different components, each pair once
+    static CSRGraph condense(CSRGraph g, int[] label, int count){
+
+        // nodes grouped by component: members[start[c] .. start[c+1])
+        int[] start = new int[count + 1];
+        for(int v=0; v<g.nodes; v++) start[label[v]+1]++;
+        for(int c=0; c<count; c++) start[c+1] += start[c];
+        int[] members = new int[g.nodes];
+        int[] pos = Arrays.copyOf(start, count);
+        for(int v=0; v<g.nodes; v++) members[pos[label[v]]++] = v;
+
+        // last[d] == c marks d as already linked from c; count first, then fill
+        int[] last = new int[count];
+        int[] offsets = new int[count + 1];
+        Arrays.fill(last, -1);
+        for(int c=0; c<count; c++){
+            for(int i=start[c]; i<start[c+1]; i++){
+                int v = members[i];
+                for(int e=g.offsets[v]; e<g.offsets[v+1]; e++){
+                    int d = label[g.targets[e]];
+                    if(d == c || last[d] == c) continue;
+                    last[d] = c;
+                    offsets[c+1]++;
+                }
+            }
+        }
+        for(int c=0; c<count; c++) offsets[c+1] += offsets[c];
+
+        int[] targets = new int[offsets[count]];
+        Arrays.fill(last, -1);
+        for(int c=0; c<count; c++){
+            int k = offsets[c];
+            for(int i=start[c]; i<start[c+1]; i++){
+                int v = members[i];
+                for(int e=g.offsets[v]; e<g.offsets[v+1]; e++){
+                    int d = label[g.targets[e]];
+                    if(d == c || last[d] == c) continue;
+                    last[d] = c;
+                    targets[k++] = d;
+                }
+            }
+        }
+        return new CSRGraph(count, offsets, targets);
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.*;
+
+/**
+ * DSU that can undo unions, for offline dynamic connectivity and divide and
+ * conquer over time.
+ *
+ * Union by size without path compression, so every union changes exactly two
+ * entries and find stays O(log n). Each successful union pushes the linked root
+ * and its old size onto an undo stack; snapshot() returns the stack height and
+ * rollback(snapshot) pops back down to it.
+ */
+public class RollbackDSU {
+
+    int components;
+    int[] parent; // negative size for roots, like DSU
+
+    private int[] history = new int[16]; // pairs of (linked root, its size before the link)
+    private int top = 0;
+
+    RollbackDSU(int n){
+        parent = new int[n];
+        components = n;
+        for(int i=0; i<n; i++) parent[i] = -1;
+    }
+
+    public int find(int x){
+        while(parent[x] >= 0) x = parent[x];
+        return x;
+    }
+
+    public boolean union(int a, int b){
+
+        int ra = find(a);
+        int rb = find(b);
+        if(ra == rb) return false; // already in same set
+
+        if(parent[ra] > parent[rb]){ // more negative is larger set
+            int temp = ra;
+            ra = rb;
+            rb = temp;
+        }
+
+        if(top + 2 > history.length) history = Arrays.copyOf(history, history.length * 2);
+        history[top++] = rb;
+        history[top++] = parent[rb];
+
+        //merging rb into ra
+        parent[ra] += parent[rb];
+        parent[rb] = ra;
+        components--;
+        return true;
+    }
+
+    public boolean connected(int a, int b){
+        return find(a) == find(b);
+    }
+
+    public int sizeOf(int x){
+        return -parent[find(x)];
+    }
+
+    public int count(){
+        return components;
+    }
+
+    /** Marker for the current state, to be passed to rollback later. */
+    public int snapshot(){
+        return top;
+    }
+
+    /** Undo every union made after the given snapshot, most recent first. */
+    public void rollback(int snapshot){
+        if(snapshot < 0 || snapshot > top || (snapshot & 1) != 0)
+            throw new IllegalArgumentException("invalid snapshot " + snapshot);
+
+        while(top > snapshot){
+            int oldSize = history[--top];
+            int rb = history[--top];
+            int ra = parent[rb];
+            parent[ra] -= oldSize;
+            parent[rb] = oldSize;
+            components++;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Strongly connected components over CSRGraph, as a component id per node.
+ *
+ * tarjan: Pearce's single-pass variant of Tarjan's algorithm with explicit
+ * stacks. It needs no reversed graph and keeps one rindex per node instead of
+ * separate index/lowlink arrays. Components are numbered in reverse topological
+ * order of the condensation: an edge between two components always goes from a
+ * higher id to a lower one.
+ *
+ * parallel: the Multistep scheme (Slota, Rajamanickam and Madduri):
+ *   1. trim: nodes with no remaining in- or out-neighbour are SCCs on their own
+ *   2. forward-backward from one high-degree pivot, which peels off the giant SCC
+ *   3. colouring: propagate the max node id along edges, then every node that kept
+ *      its own id collects its SCC by a backward search inside its colour
+ *   4. once little is left, or colouring stops making progress (a long DAG of
+ *      small SCCs peels only a few roots per round), the rest goes to sequential Tarjan
+ * Every search is a level-synchronous parallel BFS. Ids from parallel() are
+ * not in topological order.
+ */
+public final class StronglyConnectedComponents {
+
+    static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+    static final int TRIM_ROUNDS = 3;
+    static final int COLOUR_MIN_PEEL = 8; // keep colouring while a round labels at least 1/8 of what was left
+    static final int CHUNK = 1024;
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private StronglyConnectedComponents(){}
+
+    public static ConnectedComponents.Result tarjan(CSRGraph g){
+        int[] label = new int[g.nodes];
+        Arrays.fill(label, -1);
+        int count = tarjan(g, label, 0);
+        return new ConnectedComponents.Result(label, count);
+    }
+
+    // Labels every node with label == -1, numbering from next; already labelled
+    // nodes are treated as removed. Returns the next free id.
+    private static int tarjan(CSRGraph g, int[] label, int next){
+
+        int n = g.nodes;
+        int[] rindex = new int[n];     // 0 = unvisited
+        boolean[] root = new boolean[n];
+        int[] stack = new int[16];     // DFS path
+        int[] cursor = new int[16];
+        int[] comp = new int[16];      // visited nodes not yet in a component
+        int compTop = 0;
+        int index = 1;
+
+        for(int s=0; s<n; s++){
+            if(label[s] != -1 || rindex[s] != 0) continue;
+
+            int top = 0;
+            stack[0] = s;
+            cursor[0] = g.offsets[s];
+            rindex[s] = index++;
+            root[s] = true;
+
+            while(top >= 0){
+                int u = stack[top];
+
+                if(cursor[top] < g.offsets[u+1]){
+                    int w = g.targets[cursor[top]++];
+                    if(label[w] != -1) continue;
+                    if(rindex[w] == 0){
+                        if(++top == stack.length){
+                            stack = Arrays.copyOf(stack, top * 2);
+                            cursor = Arrays.copyOf(cursor, top * 2);
+                        }
+                        stack[top] = w;
+                        cursor[top] = g.offsets[w];
+                        rindex[w] = index++;
+                        root[w] = true;
+                    }else if(rindex[w] < rindex[u]){
+                        rindex[u] = rindex[w];
+                        root[u] = false;
+                    }
+                    continue;
+                }
+
+                top--;
+                if(root[u]){
+                    // u and everything visited after it that is still open form its SCC
+                    while(compTop > 0 && rindex[comp[compTop-1]] >= rindex[u]) label[comp[--compTop]] = next;
+                    label[u] = next++;
+                }else{
+                    if(compTop == comp.length) comp = Arrays.copyOf(comp, compTop * 2);
+                    comp[compTop++] = u;
+                    int p = stack[top];
+                    if(rindex[u] < rindex[p]){
+                        rindex[p] = rindex[u];
+                        root[p] = false;
+                    }
+                }
+            }
+        }
+        return next;
+    }
+
+    /** `in` is the transpose of `out`. */
+    public static ConnectedComponents.Result parallel(CSRGraph out, CSRGraph in){
+
+        int n = out.nodes;
+        if(out.edgeCount() < SEQUENTIAL_THRESHOLD) return tarjan(out);
+
+        int[] label = new int[n];
+        Arrays.fill(label, -1);
+        AtomicInteger next = new AtomicInteger();
+
+        trim(out, in, label, next);
+        forwardBackward(out, in, label, next);
+
+        int[] remaining = remaining(label);
+        while(remaining.length > 0 && remainingEdges(out, remaining) >= SEQUENTIAL_THRESHOLD){
+            colour(out, in, label, next, remaining);
+            trim(out, in, label, next);
+            int before = remaining.length;
+            remaining = remaining(label);
+            if(before - remaining.length < before / COLOUR_MIN_PEEL) break;
+        }
+
+        int count = tarjan(out, label, next.get());
+        return new ConnectedComponents.Result(label, count);
+    }
+
+    // A node with no unlabelled in- or out-neighbour other than itself cannot be on
+    // a cycle. Nodes labelled concurrently in the same round only make this stricter.
+    private static void trim(CSRGraph out, CSRGraph in, int[] label, AtomicInteger next){
+        for(int round=0; round<TRIM_ROUNDS; round++){
+            AtomicBoolean changed = new AtomicBoolean();
+            IntStream.range(0, out.nodes).parallel().forEach(v -> {
+                if(label[v] != -1) return;
+                if(hasOpenNeighbour(out, label, v) && hasOpenNeighbour(in, label, v)) return;
+                label[v] = next.getAndIncrement();
+                changed.set(true);
+            });
+            if(!changed.get()) return;
+        }
+    }
+
+    private static boolean hasOpenNeighbour(CSRGraph g, int[] label, int v){
+        for(int e=g.offsets[v]; e<g.offsets[v+1]; e++){
+            int w = g.targets[e];
+            if(w != v && (int) INTS.getOpaque(label, w) == -1) return true;
+        }
+        return false;
+    }
+
+    // the pivot's SCC is what it reaches forward and also reaches it backward
+    private static void forwardBackward(CSRGraph out, CSRGraph in, int[] label, AtomicInteger next){
+
+        int n = out.nodes;
+        int pivot = IntStream.range(0, n).parallel().filter(v -> label[v] == -1).boxed()
+            .max(Comparator.comparingLong(v -> (long) out.degree(v) * in.degree(v))).orElse(-1);
+        if(pivot == -1) return;
+
+        int[] forward = new int[n];
+        forward[pivot] = 1;
+        expand(out, new int[]{pivot}, (u, w) -> label[w] == -1 && forward[w] == 0 && INTS.compareAndSet(forward, w, 0, 1));
+
+        int id = next.getAndIncrement();
+        label[pivot] = id;
+        expand(in, new int[]{pivot}, (u, w) -> forward[w] == 1 && INTS.compareAndSet(label, w, -1, id));
+    }
+
+    private static void colour(CSRGraph out, CSRGraph in, int[] label, AtomicInteger next, int[] remaining){
+
+        int n = out.nodes;
+        int[] colour = new int[n];
+        IntStream.of(remaining).parallel().forEach(v -> colour[v] = v);
+
+        // max id flows forward until stable; afterwards colour[v] == v means no
+        // higher id reaches v, and v's SCC is the part of its colour that reaches v.
+        // Only nodes whose colour went up are rescanned, each at most once per round.
+        int[] queued = new int[n];
+        int[] frontier = remaining;
+        for(int round=1; frontier.length > 0; round++){
+            final int stamp = round;
+            frontier = expandOnce(out, frontier, (v, w) -> {
+                if(label[w] != -1) return false;
+                int c = (int) INTS.getOpaque(colour, v);
+                int old = (int) INTS.getOpaque(colour, w);
+                while(old < c){
+                    if(INTS.compareAndSet(colour, w, old, c)){
+                        int q = (int) INTS.getOpaque(queued, w);
+                        return q != stamp && INTS.compareAndSet(queued, w, q, stamp);
+                    }
+                    old = (int) INTS.getOpaque(colour, w);
+                }
+                return false;
+            });
+        }
+
+        int[] roots = IntStream.of(remaining).parallel().filter(v -> colour[v] == v).toArray();
+        IntStream.of(roots).parallel().forEach(r -> label[r] = next.getAndIncrement());
+        expand(in, roots, (x, w) -> colour[w] == colour[x] && INTS.compareAndSet(label, w, -1, label[x]));
+    }
+
+    private interface Claim {
+        // true when w is taken from frontier node u and belongs in the next frontier
+        boolean claim(int u, int w);
+    }
+
+    private static void expand(CSRGraph g, int[] frontier, Claim claim){
+        while(frontier.length > 0) frontier = expandOnce(g, frontier, claim);
+    }
+
+    // one level: every edge out of the frontier, in parallel chunks
+    private static int[] expandOnce(CSRGraph g, int[] frontier, Claim claim){
+        int chunks = (frontier.length + CHUNK - 1) / CHUNK;
+        return IntStream.range(0, chunks).parallel().mapToObj(c -> {
+            int[] taken = new int[16];
+            int cnt = 0;
+            for(int i=c*CHUNK, end=Math.min(frontier.length, (c+1)*CHUNK); i<end; i++){
+                int u = frontier[i];
+                for(int e=g.offsets[u]; e<g.offsets[u+1]; e++){
+                    int w = g.targets[e];
+                    if(!claim.claim(u, w)) continue;
+                    if(cnt == taken.length) taken = Arrays.copyOf(taken, cnt * 2);
+                    taken[cnt++] = w;
+                }
+            }
+            return Arrays.copyOf(taken, cnt);
+        }).flatMapToInt(IntStream::of).toArray();
+    }
+
+    private static int[] remaining(int[] label){
+        return IntStream.range(0, label.length).parallel().filter(v -> label[v] == -1).toArray();
+    }
+
+    private static long remainingEdges(CSRGraph g, int[] remaining){
+        return IntStream.of(remaining).parallel().mapToLong(g::degree).sum();
+    }
+}
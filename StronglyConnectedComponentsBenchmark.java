@@ -0,0 +1,101 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compares StronglyConnectedComponents.tarjan and .parallel against Kosaraju on
+ * a random graph made of planted cycles joined by forward (acyclic) edges, plus
+ * one denser giant SCC. All three must find the same partition.
+ *
+ * Kosaraju's DFS is recursive, so it runs on a thread with a large stack.
+ *
+ * Usage: java StronglyConnectedComponentsBenchmark [nodes] [avgDegree]
+ */
+public class StronglyConnectedComponentsBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        Random random = new Random(42);
+
+        // nodes are shuffled, then cut into cycles of random length; the first
+        // fifth of the order forms one giant cycle
+        int[] perm = new int[n];
+        for(int i=0; i<n; i++) perm[i] = i;
+        for(int i=n-1; i>0; i--){
+            int j = random.nextInt(i+1);
+            int t = perm[i]; perm[i] = perm[j]; perm[j] = t;
+        }
+
+        Kosaraju kosaraju = new Kosaraju(n);
+        int i = 0;
+        while(i < n){
+            int len = i == 0 ? Math.max(1, n/5) : 1 + random.nextInt(8);
+            int end = Math.min(n, i + len);
+            for(int k=i; k<end; k++) kosaraju.addEdge(perm[k], perm[k+1 < end ? k+1 : i]);
+            i = end;
+        }
+        // the giant component is denser, as in real graphs; edges inside it change nothing
+        int giant = Math.max(1, n/5);
+        for(int e=0; e<giant * degree; e++) kosaraju.addEdge(perm[random.nextInt(giant)], perm[random.nextInt(giant)]);
+        // forward edges in the shuffled order cannot close new cycles
+        for(long e=0; e<(long) n * (degree - 1); e++){
+            int a = random.nextInt(n), b = random.nextInt(n);
+            if(a == b) continue;
+            kosaraju.addEdge(perm[Math.min(a, b)], perm[Math.max(a, b)]);
+        }
+
+        CSRGraph out = kosaraju.toCSR();
+        CSRGraph in = out.transpose();
+        System.out.printf("nodes=%d edges=%d%n", n, out.edgeCount());
+
+        // warm up
+        StronglyConnectedComponents.tarjan(out);
+        StronglyConnectedComponents.parallel(out, in);
+
+        long start = System.nanoTime();
+        ConnectedComponents.Result tarjan = StronglyConnectedComponents.tarjan(out);
+        double tarjanMs = (System.nanoTime() - start) / 1e6;
+
+        start = System.nanoTime();
+        ConnectedComponents.Result parallel = StronglyConnectedComponents.parallel(out, in);
+        double parallelMs = (System.nanoTime() - start) / 1e6;
+
+        AtomicReference<List<List<Integer>>> kosarajuResult = new AtomicReference<>();
+        double[] kosarajuMs = new double[1];
+        Thread t = new Thread(null, () -> {
+            long s = System.nanoTime();
+            kosarajuResult.set(kosaraju.getSCCs());
+            kosarajuMs[0] = (System.nanoTime() - s) / 1e6;
+        }, "kosaraju", 1L << 30);
+        t.start();
+        t.join();
+
+        int[] kosarajuLabel = new int[n];
+        List<List<Integer>> sccs = kosarajuResult.get();
+        for(int c=0; c<sccs.size(); c++){
+            for(int v: sccs.get(c)) kosarajuLabel[v] = c;
+        }
+        if(!samePartition(tarjan.labels(), kosarajuLabel)) throw new AssertionError("tarjan and Kosaraju disagree");
+        if(!samePartition(parallel.labels(), kosarajuLabel)) throw new AssertionError("parallel and Kosaraju disagree");
+
+        System.out.printf("components=%d%n", tarjan.count());
+        System.out.printf("Kosaraju:  %8.1f ms%n", kosarajuMs[0]);
+        System.out.printf("tarjan:    %8.1f ms%n", tarjanMs);
+        System.out.printf("parallel:  %8.1f ms (%d threads)%n", parallelMs, Runtime.getRuntime().availableProcessors());
+    }
+
+    // same partition iff the labels map one-to-one; labels are below the node count
+    static boolean samePartition(int[] a, int[] b){
+        int n = a.length;
+        int[] ab = new int[n], ba = new int[n];
+        Arrays.fill(ab, -1);
+        Arrays.fill(ba, -1);
+        for(int v=0; v<n; v++){
+            if(ab[a[v]] == -1) ab[a[v]] = b[v];
+            if(ba[b[v]] == -1) ba[b[v]] = a[v];
+            if(ab[a[v]] != b[v] || ba[b[v]] != a[v]) return false;
+        }
+        return true;
+    }
+}
@@ -8,6 +8,8 @@ public class TarjansBridgeAndArticulationPoints{
     private boolean[] visited;
     private boolean[] articulation;
     private List<int[]> bridges;
+    private int[] edgeFrom = new int[16], edgeTo = new int[16];
+    private int edgeCount = 0;
 
     public TarjansBridgeAndArticulationPoints(int n) {
         graph = new ArrayList<>();
@@ -24,19 +26,38 @@ public class TarjansBridgeAndArticulationPoints{
     public void addEdge(int u, int v) {
         graph.get(u).add(v);
         graph.get(v).add(u);
+        if(edgeCount == edgeFrom.length){
+            edgeFrom = Arrays.copyOf(edgeFrom, edgeCount * 2);
+            edgeTo = Arrays.copyOf(edgeTo, edgeCount * 2);
+        }
+        edgeFrom[edgeCount] = u;
+        edgeTo[edgeCount++] = v;
     }
 
 
+    // Uses the iterative BiconnectedComponents, which finds the same bridges in the
+    // same order as dfs() below but has no recursion depth limit and treats parallel
+    // edges correctly. Results of an earlier run are replaced, not added to.
     public void run(){
-        
-        for(int i=0; i<graph.size(); i++){
-            if(!visited[i]){
-                dfs(i);
-            }
-        }
-        
+
+        BiconnectedComponents bcc = biconnectedComponents();
+        bridges.clear();
+        Arrays.fill(articulation, false);
+        bridges.addAll(bcc.bridgePairs());
+        for(int v: bcc.articulationPoints()) articulation[v] = true;
+
+    }
+
+    public BiconnectedComponents biconnectedComponents(){
+        return new BiconnectedComponents(graph.size(), Arrays.copyOf(edgeFrom, edgeCount), Arrays.copyOf(edgeTo, edgeCount));
+    }
+
+    // same bridges and articulation points computed on all cores, for large graphs
+    public ParallelBiconnectivity parallelBiconnectivity(){
+        return new ParallelBiconnectivity(graph.size(), Arrays.copyOf(edgeFrom, edgeCount), Arrays.copyOf(edgeTo, edgeCount));
     }
 
+    // recursive version, fine for small graphs
     public void dfs(int u){
 
         int children = 0;
@@ -0,0 +1,179 @@
+import java.util.*;
+
+/**
+ * 2-SAT solver over a primitive implication graph.
+ *
+ * Variable x has literals 2x (x is true) and 2x+1 (x is false), so not(l) = l ^ 1.
+ * A clause (a or b) adds the implications not(a) -> b and not(b) -> a. The
+ * formula is satisfiable iff no variable shares an SCC with its negation, and
+ * then x is true iff comp(2x) comes before comp(2x+1) in topological order.
+ * SCCs come from the iterative StronglyConnectedComponents.tarjan.
+ *
+ * Clauses can be added after a solve. The previous answer is reused where possible:
+ *   - unsatisfiable stays unsatisfiable
+ *   - a clause the current assignment already satisfies changes nothing
+ *   - otherwise one of its literals is set true and the change is propagated
+ *     along implications from every literal that flipped; if that finishes
+ *     without forcing both x and not x, the assignment satisfies all clauses
+ *     again. Only when both literals fail does the next solve() rerun the SCCs.
+ */
+public final class TwoSat {
+
+    private int variables;
+    private int[][] adj;     // adj[l][0..deg[l]) are the implications out of literal l
+    private int[] deg;
+
+    private boolean[] value; // by variable, valid while state == SATISFIABLE
+    private int state = UNKNOWN;
+    private int fullSolves;
+
+    private static final int UNKNOWN = 0, SATISFIABLE = 1, UNSATISFIABLE = 2;
+
+    // scratch for propagation: stamp[l] == round marks l as forced true this round
+    private int[] stamp;
+    private int round;
+    private int[] forced = new int[16];
+
+    public TwoSat(int variables){
+        this.variables = variables;
+        adj = new int[2*variables][];
+        deg = new int[2*variables];
+        for(int l=0; l<2*variables; l++) adj[l] = new int[2];
+        value = new boolean[variables];
+        stamp = new int[2*variables];
+    }
+
+    public static int positive(int var){
+        return 2*var;
+    }
+
+    public static int negative(int var){
+        return 2*var + 1;
+    }
+
+    public static int not(int literal){
+        return literal ^ 1;
+    }
+
+    public int variableCount(){
+        return variables;
+    }
+
+    /** Times solve() had to rerun the SCCs instead of reusing the previous answer. */
+    public int fullSolveCount(){
+        return fullSolves;
+    }
+
+    /** Adds a variable, initially false, and returns its index. */
+    public int newVariable(){
+        int var = variables++;
+        if(2*variables > adj.length){
+            int cap = Math.max(2*variables, adj.length * 2);
+            adj = Arrays.copyOf(adj, cap);
+            deg = Arrays.copyOf(deg, cap);
+            stamp = Arrays.copyOf(stamp, cap);
+            value = Arrays.copyOf(value, cap / 2);
+        }
+        adj[2*var] = new int[2];
+        adj[2*var + 1] = new int[2];
+        return var;
+    }
+
+    /** a or b. */
+    public void addClause(int a, int b){
+        addEdge(not(a), b);
+        if(a != b) addEdge(not(b), a);
+
+        if(state != SATISFIABLE || isTrue(a) || isTrue(b)) return;
+        if(!propagate(a) && !propagate(b)) state = UNKNOWN;
+    }
+
+    /** a implies b, the clause (not a or b). */
+    public void addImplication(int a, int b){
+        addClause(not(a), b);
+    }
+
+    /** Forces literal a to be true. */
+    public void mustBeTrue(int a){
+        addClause(a, a);
+    }
+
+    /** Not both a and b. */
+    public void atMostOne(int a, int b){
+        addClause(not(a), not(b));
+    }
+
+    public boolean solve(){
+
+        if(state == SATISFIABLE) return true;
+        if(state == UNSATISFIABLE) return false;
+
+        fullSolves++;
+        int literals = 2*variables;
+        int[] offsets = new int[literals + 1];
+        for(int l=0; l<literals; l++) offsets[l+1] = offsets[l] + deg[l];
+        int[] targets = new int[offsets[literals]];
+        for(int l=0; l<literals; l++) System.arraycopy(adj[l], 0, targets, offsets[l], deg[l]);
+
+        // tarjan numbers components in reverse topological order
+        int[] comp = StronglyConnectedComponents.tarjan(new CSRGraph(literals, offsets, targets)).labels();
+        for(int x=0; x<variables; x++){
+            if(comp[2*x] == comp[2*x + 1]){
+                state = UNSATISFIABLE;
+                return false;
+            }
+            value[x] = comp[2*x] < comp[2*x + 1];
+        }
+        state = SATISFIABLE;
+        return true;
+    }
+
+    /** Value of var in the last satisfying assignment. */
+    public boolean value(int var){
+        if(state != SATISFIABLE) throw new IllegalStateException("no satisfying assignment, call solve() first");
+        return value[var];
+    }
+
+    public boolean[] assignment(){
+        if(state != SATISFIABLE) throw new IllegalStateException("no satisfying assignment, call solve() first");
+        return Arrays.copyOf(value, variables);
+    }
+
+    private void addEdge(int a, int b){
+        if(deg[a] == adj[a].length) adj[a] = Arrays.copyOf(adj[a], deg[a] * 2);
+        adj[a][deg[a]++] = b;
+    }
+
+    public boolean isTrue(int literal){
+        return value[literal >> 1] == ((literal & 1) == 0);
+    }
+
+    // Tries to make l true by flipping l and everything it forces. Applied only
+    // when no literal gets forced together with its negation.
+    private boolean propagate(int l){
+
+        if(++round == 0){
+            Arrays.fill(stamp, 0);
+            round = 1;
+        }
+        int count = 0;
+        forced[count++] = l;
+        stamp[l] = round;
+
+        for(int i=0; i<count; i++){
+            int x = forced[i];
+            for(int k=0; k<deg[x]; k++){
+                int y = adj[x][k];
+                if(stamp[y] == round) continue;
+                if(stamp[not(y)] == round) return false;
+                if(isTrue(y)) continue; // stays true: nothing forced so far touches y's variable
+                stamp[y] = round;
+                if(count == forced.length) forced = Arrays.copyOf(forced, count * 2);
+                forced[count++] = y;
+            }
+        }
+
+        for(int i=0; i<count; i++) value[forced[i] >> 1] = (forced[i] & 1) == 0;
+        return true;
+    }
+}
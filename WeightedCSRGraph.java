@@ -0,0 +1,102 @@
+import java.util.*;
+
+/**
+ * Immutable CSR adjacency with an int weight per edge.
+ *
+ * Edge e of node u (offsets[u] <= e < offsets[u+1]) goes to targets[e] with
+ * weight weights[e]. Built once and shared read-only by the shortest path engines.
+ */
+public final class WeightedCSRGraph {
+
+    final int nodes;
+    final int[] offsets; // length nodes+1
+    final int[] targets;
+    final int[] weights;
+
+    WeightedCSRGraph(int nodes, int[] offsets, int[] targets, int[] weights){
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /** Build from parallel edge arrays; undirected edges are stored in both directions. */
+    public static WeightedCSRGraph fromEdges(int n, int[] from, int[] to, int[] w, boolean isDirected){
+
+        int m = from.length;
+        int[] offsets = new int[n+1];
+        for(int i=0; i<m; i++){
+            offsets[from[i]+1]++;
+            if(!isDirected) offsets[to[i]+1]++;
+        }
+        for(int i=0; i<n; i++) offsets[i+1] += offsets[i];
+
+        int[] targets = new int[offsets[n]];
+        int[] weights = new int[offsets[n]];
+        int[] pos = Arrays.copyOf(offsets, n);
+        for(int i=0; i<m; i++){
+            int p = pos[from[i]]++;
+            targets[p] = to[i];
+            weights[p] = w[i];
+            if(!isDirected){
+                p = pos[to[i]]++;
+                targets[p] = from[i];
+                weights[p] = w[i];
+            }
+        }
+        return new WeightedCSRGraph(n, offsets, targets, weights);
+    }
+
+    /** Build from DSU's edge list (DSU.dijkstraShortestPath treats it as undirected). */
+    public static WeightedCSRGraph fromEdgeList(int n, ArrayList<DSU.Edge> edges, boolean isDirected){
+
+        int m = edges.size();
+        int[] from = new int[m], to = new int[m], w = new int[m];
+        for(int i=0; i<m; i++){
+            DSU.Edge e = edges.get(i);
+            from[i] = e.u;
+            to[i] = e.v;
+            w[i] = e.w;
+        }
+        return fromEdges(n, from, to, w, isDirected);
+    }
+
+    public int nodeCount(){
+        return nodes;
+    }
+
+    public int edgeCount(){
+        return offsets[nodes];
+    }
+
+    public int degree(int u){
+        return offsets[u+1] - offsets[u];
+    }
+
+    /** Graph with every edge reversed, keeping its weight. */
+    public WeightedCSRGraph transpose(){
+
+        int[] tOffsets = new int[nodes+1];
+        for(int i=0; i<targets.length; i++) tOffsets[targets[i]+1]++;
+        for(int i=0; i<nodes; i++) tOffsets[i+1] += tOffsets[i];
+
+        int[] tTargets = new int[targets.length];
+        int[] tWeights = new int[targets.length];
+        int[] pos = Arrays.copyOf(tOffsets, nodes);
+        for(int u=0; u<nodes; u++){
+            for(int e=offsets[u]; e<offsets[u+1]; e++){
+                int p = pos[targets[e]]++;
+                tTargets[p] = u;
+                tWeights[p] = weights[e];
+            }
+        }
+        return new WeightedCSRGraph(nodes, tOffsets, tTargets, tWeights);
+    }
+
+    public boolean hasNegativeWeights(){
+        for(int w: weights){
+            if(w < 0) return true;
+        }
+        return false;
+    }
+}